@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Starts the app in each packaging mode several times and prints the median time until
+# /actuator/health answers and the resident memory at that point:
+#
+#   jvm          the Spring Boot fat jar, as deployed today
+#   jvm-cds      plain jars from build/cds with the CDS archive from the cdsArchive training run
+#   jvm-aot-cds  the same with Spring AOT initializers (-Dspring.aot.enabled=true) and their archive
+#   native       the GraalVM native image, if build/native/nativeCompile/map-struct exists
+#                (./gradlew nativeCompile with a GraalVM JDK as the toolchain)
+#
+# Needs a reachable Postgres as configured in application.yaml; extra application arguments, such
+# as another datasource URL, go in APP_ARGS and are used for the training runs too. JAVA must be the
+# JDK 21 the Gradle toolchain trained the archives with, otherwise the JVM silently ignores them.
+#
+#   scripts/compare-startup.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+APP_ARGS=${APP_ARGS:-}
+JAVA=${JAVA:-java}
+HEALTH=http://localhost:8081/actuator/health
+NATIVE=build/native/nativeCompile/map-struct
+
+cd "$(dirname "$0")/.."
+./gradlew -q bootJar cdsArchive cdsAotArchive -Pcds.appArgs="$APP_ARGS"
+JAR=$(ls build/libs/*-SNAPSHOT.jar | grep -v plain | head -1)
+
+# Runs the given command RUNS times and prints "<ready ms> <rss KiB>" per run.
+measure() {
+  local mode=$1
+  shift
+  for _ in $(seq "$RUNS"); do
+    local started
+    started=$(date +%s%N)
+    "$@" >"build/startup-$mode.log" 2>&1 &
+    local pid=$!
+    until curl -sf "$HEALTH" >/dev/null; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "$mode exited before becoming ready, see build/startup-$mode.log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    echo "$(( ($(date +%s%N) - started) / 1000000 )) $(ps -o rss= -p "$pid" | tr -d ' ')"
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+  done
+}
+
+report() {
+  local mode=$1
+  shift
+  local samples
+  samples=$(measure "$mode" "$@")
+  local ready rss
+  ready=$(echo "$samples" | awk '{print $1}' | sort -n | awk '{a[NR]=$1} END {print a[int((NR + 1) / 2)]}')
+  rss=$(echo "$samples" | awk '{print $2}' | sort -n | awk '{a[NR]=$1} END {print a[int((NR + 1) / 2)]}')
+  printf '%-12s %10s %10s\n' "$mode" "$ready" "$((rss / 1024))"
+}
+
+# shellcheck disable=SC2086
+{
+  printf '%-12s %10s %10s\n' mode ready_ms rss_mb
+  report jvm "$JAVA" -jar "$JAR" $APP_ARGS
+  report jvm-cds sh -c "cd build/cds && exec $JAVA -XX:SharedArchiveFile=application.jsa -jar application.jar $APP_ARGS"
+  report jvm-aot-cds sh -c "cd build/cds && exec $JAVA -XX:SharedArchiveFile=application-aot.jsa -Dspring.aot.enabled=true -jar application.jar $APP_ARGS"
+  if [ -x "$NATIVE" ]; then
+    report native "$NATIVE" $APP_ARGS
+  else
+    echo "native       skipped, run ./gradlew nativeCompile on a GraalVM JDK first" >&2
+  fi
+}
@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+# Runs the same load against the app in platform-thread and virtual-thread mode and prints both
+# reports. Needs a reachable Postgres as configured in application.yaml.
+#
+#   scripts/compare-thread-modes.sh [url] [concurrency] [durationSeconds]
+set -euo pipefail
+
+URL=${1:-http://localhost:8081/user/1}
+CONCURRENCY=${2:-500}
+DURATION=${3:-30}
+
+cd "$(dirname "$0")/.."
+./gradlew -q bootJar
+JAR=$(ls build/libs/*-SNAPSHOT.jar | grep -v plain | head -1)
+
+for virtual in false true; do
+  java -jar "$JAR" --app.threads.virtual.enabled="$virtual" >"build/app-virtual-$virtual.log" 2>&1 &
+  APP_PID=$!
+  trap 'kill $APP_PID 2>/dev/null || true' EXIT
+  until curl -sf http://localhost:8081/actuator/health >/dev/null; do sleep 1; done
+
+  echo "== virtual threads: $virtual"
+  ./gradlew -q loadTest -PloadTest.url="$URL" -PloadTest.concurrency=1 -PloadTest.durationSeconds=5 >/dev/null
+  ./gradlew -q loadTest -PloadTest.url="$URL" -PloadTest.concurrency="$CONCURRENCY" -PloadTest.durationSeconds="$DURATION"
+
+  kill "$APP_PID"
+  wait "$APP_PID" 2>/dev/null || true
+done
@@ -0,0 +1,49 @@
+package az.ingress.mapstruct;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts the application for a benchmark on an in-memory, PostgreSQL-mode H2 database with the
+ * schema generated by Hibernate. The settings go in as command-line arguments, the only source that
+ * outranks application.yaml, so a {@code key=value} passed by the benchmark replaces the default
+ * for that key instead of being joined to it.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(MapStructApplication.class).web(WebApplicationType.NONE);
+    }
+
+    public static ConfigurableApplicationContext start(String database, String... properties) {
+        return start(builder(), database, properties);
+    }
+
+    public static ConfigurableApplicationContext start(SpringApplicationBuilder builder, String database, String... properties) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        settings.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        settings.put("spring.datasource.username", "sa");
+        settings.put("spring.datasource.password", "");
+        settings.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        settings.put("spring.flyway.enabled", "false");
+        settings.put("spring.cache.type", "none");
+        settings.put("app.admission.enabled", "false");
+        settings.put("app.outbox.relay-interval", "PT24H");
+        settings.put("logging.level.root", "WARN");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            settings.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        return builder.run(settings.entrySet().stream()
+                .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+                .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,50 @@
+package az.ingress.mapstruct.admission;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the admission checks. The bucket admits far more than the benchmark can
+ * call it, so every call takes the admit path; {@code threads} shows the cost under CAS contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AdmissionBenchmark {
+
+    TokenBucket bucket;
+    AdaptiveConcurrencyLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        bucket = new TokenBucket(1e12, 1_000_000);
+        limiter = new AdaptiveConcurrencyLimiter(1_000, 1_000, 1_000, 2.0);
+    }
+
+    @Benchmark
+    public long tokenBucket() {
+        return bucket.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean concurrencyLimiter() {
+        boolean acquired = limiter.tryAcquire();
+        if (acquired) {
+            limiter.release(1_000);
+        }
+        return acquired;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tokenBucketContended() {
+        return bucket.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean concurrencyLimiterContended() {
+        return concurrencyLimiter();
+    }
+}
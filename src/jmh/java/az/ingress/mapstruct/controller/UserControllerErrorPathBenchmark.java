@@ -0,0 +1,66 @@
+package az.ingress.mapstruct.controller;
+
+import az.ingress.mapstruct.BenchmarkApplication;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Compares the error responses of {@link UserController} with the success path through the full
+ * MVC stack. The cache is off so that a found and a missing id each cost one query, and admission
+ * control is off so that it does not throttle the invalid POSTs. The outbox relay needs Postgres,
+ * so it is pushed out of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserControllerErrorPathBenchmark {
+
+    private static final String INVALID_USER = "{\"name\":\"\",\"surname\":\"Babayev\",\"age\":5}";
+
+    ConfigurableApplicationContext context;
+    MockMvc mockMvc;
+    long existingId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                BenchmarkApplication.builder().web(WebApplicationType.SERVLET), "errors", "server.port=0");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        existingId = context.getBean(UserRepository.class)
+                .save(User.builder().name("Kamran").surname("Babayev").age(24).build())
+                .getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int found() throws Exception {
+        return mockMvc.perform(get("/user/{id}", existingId)).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int notFound() throws Exception {
+        return mockMvc.perform(get("/user/{id}", existingId + 1_000_000)).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int invalid() throws Exception {
+        return mockMvc.perform(post("/user").contentType(MediaType.APPLICATION_JSON).content(INVALID_USER))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,44 @@
+package az.ingress.mapstruct.dto;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserResponseSerializationBenchmark {
+
+    @Param({"1", "100", "10000", "1000000"})
+    int size;
+
+    ObjectWriter writer;
+    UserResponse response;
+    List<UserResponse> responses;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writer();
+        response = new UserResponse("Kamran", "Babayev", 24);
+        responses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            responses.add(new UserResponse("Name" + i, "Surname" + i, 10 + i % 80));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeUserResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeUserResponseList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(responses);
+    }
+}
@@ -0,0 +1,77 @@
+package az.ingress.mapstruct.dto;
+
+import az.ingress.mapstruct.config.WireFormat;
+import az.ingress.mapstruct.config.WireFormatMappers;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of each {@link WireFormat} for a single user and for a
+ * {@code GET /user/all}-sized list. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+
+    private static final int LIST_SIZE = 10_000;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    WireFormat format;
+
+    ObjectWriter writer;
+    ObjectReader requestReader;
+    ObjectReader listReader;
+    UserResponse response;
+    List<UserResponse> responses;
+    byte[] encodedRequest;
+    byte[] encodedList;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new WireFormatMappers(new ObjectMapper()).get(format);
+        writer = mapper.writer();
+        requestReader = mapper.readerFor(UserRequest.class);
+        listReader = mapper.readerFor(new TypeReference<List<UserResponse>>() {
+        });
+        response = new UserResponse("Kamran", "Babayev", 24);
+        responses = new ArrayList<>(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            responses.add(new UserResponse("Name" + i, "Surname" + i, 10 + i % 80));
+        }
+        encodedRequest = writer.writeValueAsBytes(new UserRequest("Kamran", "Babayev", 24));
+        encodedList = writer.writeValueAsBytes(responses);
+        System.out.printf("%n%s payload: user %d bytes, %d users %d bytes%n",
+                format, writer.writeValueAsBytes(response).length, LIST_SIZE, encodedList.length);
+    }
+
+    @Benchmark
+    public byte[] encodeUser() throws IOException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public UserRequest decodeUser() throws IOException {
+        return requestReader.readValue(encodedRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeList() throws IOException {
+        return writer.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public List<UserResponse> decodeList() throws IOException {
+        return listReader.readValue(encodedList);
+    }
+}
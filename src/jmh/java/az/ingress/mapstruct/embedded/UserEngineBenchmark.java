@@ -0,0 +1,106 @@
+package az.ingress.mapstruct.embedded;
+
+import az.ingress.mapstruct.BenchmarkApplication;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.dto.response.UserSliceResponse;
+import az.ingress.mapstruct.service.UserBatchService;
+import az.ingress.mapstruct.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service on PostgreSQL-mode H2 through JPA against the same service on the embedded store,
+ * without the users cache so every read reaches the storage. Setup prints the heap and direct
+ * memory each user takes once seeded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserEngineBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"jpa", "embedded"})
+    String engine;
+
+    ConfigurableApplicationContext context;
+    UserService userService;
+    UserRequest request;
+    UserSearchRequest search;
+    long[] ids;
+    Path dataDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("embedded-bench");
+        context = BenchmarkApplication.start(
+                BenchmarkApplication.builder().profiles(engine.equals("embedded") ? new String[]{"embedded"} : new String[0]),
+                "enginebench",
+                "app.embedded.data-dir=" + dataDir,
+                "app.embedded.log-size=256MB");
+        userService = context.getBean(UserService.class);
+        UserBatchService userBatchService = context.getBean(UserBatchService.class);
+        List<UserRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new UserRequest("Name" + i, "Surname" + i, 10 + i % 80));
+        }
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        ids = userBatchService.createAll(requests).stream()
+                .mapToLong(BatchItemResponse::getId)
+                .toArray();
+        System.out.printf("%n%s: %d bytes of heap and %d bytes of direct memory per user%n", engine,
+                (usedHeap() - heapBefore) / requests.size(), (usedDirect() - directBefore) / requests.size());
+        request = new UserRequest("Kamran", "Babayev", 24);
+        search = UserSearchRequest.builder().name("Name4242").minAge(18).maxAge(65).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDir.toFile());
+    }
+
+    @Benchmark
+    public UserResponse getById() {
+        return userService.getById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public UserSliceResponse search() {
+        return userService.search(search);
+    }
+
+    @Benchmark
+    public UserResponse create() {
+        return userService.create(request);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
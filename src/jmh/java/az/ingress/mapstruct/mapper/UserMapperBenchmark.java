@@ -0,0 +1,51 @@
+package az.ingress.mapstruct.mapper;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.model.User;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+
+    @Param({"1", "100", "10000", "1000000"})
+    int size;
+
+    UserMapper userMapper;
+    UserRequest request;
+    User user;
+    List<User> users;
+
+    @Setup
+    public void setUp() {
+        userMapper = Mappers.getMapper(UserMapper.class);
+        request = new UserRequest("Kamran", "Babayev", 24);
+        user = new User(1L, "Kamran", "Babayev", 24, 0L);
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new User((long) i, "Name" + i, "Surname" + i, 10 + i % 80, 0L));
+        }
+    }
+
+    @Benchmark
+    public User mapUserRequestToUserEntity() {
+        return userMapper.mapUserRequestToUserEntity(request);
+    }
+
+    @Benchmark
+    public UserResponse mapEntityToUserResponse() {
+        return userMapper.mapEntityToUserResponse(user);
+    }
+
+    @Benchmark
+    public List<UserResponse> mapEntityListToUserResponseList() {
+        return userMapper.mapEntityListToUserResponseList(users);
+    }
+}
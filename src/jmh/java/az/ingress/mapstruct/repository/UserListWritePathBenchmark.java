@@ -0,0 +1,85 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.BenchmarkApplication;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.service.UserBatchService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /user/all} body built three ways from the same rows: entities through MapStruct and
+ * the {@code ObjectMapper}, constructor projections through the {@code ObjectMapper}, and JDBC rows
+ * through {@link az.ingress.mapstruct.dto.response.UserJsonWriter}. Divide {@code gc.alloc.rate.norm}
+ * by {@value #ROWS} for bytes allocated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserListWritePathBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    ConfigurableApplicationContext context;
+    UserRepository userRepository;
+    UserJsonRepository userJsonRepository;
+    UserMapper userMapper;
+    ObjectMapper objectMapper;
+    TransactionTemplate readOnly;
+    int lastSize = 8192;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("listbench");
+        userRepository = context.getBean(UserRepository.class);
+        userJsonRepository = context.getBean(UserJsonRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        List<UserRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new UserRequest("Name" + i, "Surname" + i, 10 + i % 80));
+        }
+        context.getBean(UserBatchService.class).createAll(requests);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] entityMapperObjectMapper() throws IOException {
+        return objectMapper.writeValueAsBytes(readOnly.execute(status ->
+                userMapper.mapEntityListToUserResponseList(userRepository.findAll())));
+    }
+
+    @Benchmark
+    public byte[] projectionObjectMapper() throws IOException {
+        return objectMapper.writeValueAsBytes(readOnly.execute(status -> userRepository.findAllResponses()));
+    }
+
+    @Benchmark
+    public byte[] jdbcUserJsonWriter() throws IOException {
+        // Presized from the previous body, as UserListSnapshotService does.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(lastSize);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            readOnly.executeWithoutResult(status -> userJsonRepository.writeAll(generator));
+            generator.writeEndArray();
+        }
+        lastSize = out.size();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.BenchmarkApplication;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.service.UserBatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity + MapStruct reads against constructor-expression projections, both inside a read-only
+ * transaction. Run with the default {@code gc} profiler to compare bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserReadPathBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    ConfigurableApplicationContext context;
+    UserRepository userRepository;
+    UserMapper userMapper;
+    TransactionTemplate readOnly;
+    long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("readbench");
+        userRepository = context.getBean(UserRepository.class);
+        userMapper = context.getBean(UserMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        List<UserRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new UserRequest("Name" + i, "Surname" + i, 10 + i % 80));
+        }
+        ids = context.getBean(UserBatchService.class).createAll(requests).stream()
+                .mapToLong(BatchItemResponse::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse entityById() {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        return readOnly.execute(status -> userMapper.mapEntityToUserResponse(userRepository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public UserResponse projectionById() {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        return readOnly.execute(status -> userRepository.findResponseById(id).orElseThrow());
+    }
+
+    @Benchmark
+    public List<UserResponse> entityAll() {
+        return readOnly.execute(status -> userMapper.mapEntityListToUserResponseList(userRepository.findAll()));
+    }
+
+    @Benchmark
+    public List<UserResponse> projectionAll() {
+        return readOnly.execute(status -> userRepository.findAllResponses());
+    }
+}
@@ -0,0 +1,70 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.BenchmarkApplication;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"caffeine", "none"})
+    String cacheType;
+
+    ConfigurableApplicationContext context;
+    UserService userService;
+    UserRequest request;
+    long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("bench", "spring.cache.type=" + cacheType);
+        userService = context.getBean(UserService.class);
+        UserBatchService userBatchService = context.getBean(UserBatchService.class);
+        List<UserRequest> requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new UserRequest("Name" + i, "Surname" + i, 10 + i % 80));
+        }
+        ids = userBatchService.createAll(requests).stream()
+                .mapToLong(BatchItemResponse::getId)
+                .toArray();
+        request = new UserRequest("Kamran", "Babayev", 24);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse create() {
+        return userService.create(request);
+    }
+
+    @Benchmark
+    public UserResponse getById() {
+        return userService.getById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<UserResponse> getAllUsers() {
+        return userService.getAllUsers();
+    }
+
+    @Benchmark
+    public UserPageResponse getUsersPage() {
+        return userService.getUsersPage(null, 100);
+    }
+}
@@ -0,0 +1,64 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.BenchmarkApplication;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging overhead on the {@link UserService} hot path. {@code appender=sync, serviceLevel=DEBUG}
+ * approximates the old unconditional per-call log lines; {@code appender=async, serviceLevel=INFO}
+ * is the production setup from {@code logback-spring.xml}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class UserServiceLoggingBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    @Param({"sync", "async"})
+    String appender;
+
+    @Param({"DEBUG", "INFO"})
+    String serviceLevel;
+
+    ConfigurableApplicationContext context;
+    UserService userService;
+    UserRequest request;
+    long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("logbench",
+                "logging.config=classpath:logback-bench-" + appender + ".xml",
+                "logging.level.az.ingress.mapstruct.service=" + serviceLevel);
+        userService = context.getBean(UserService.class);
+        request = new UserRequest("Kamran", "Babayev", 24);
+        ids = context.getBean(UserBatchService.class).createAll(Collections.nCopies(ROWS, request)).stream()
+                .mapToLong(BatchItemResponse::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse create() {
+        return userService.create(request);
+    }
+
+    @Benchmark
+    public UserResponse getById() {
+        return userService.getById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
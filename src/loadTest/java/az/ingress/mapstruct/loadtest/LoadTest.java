@@ -0,0 +1,128 @@
+package az.ingress.mapstruct.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator: {@code concurrency} virtual-thread clients each send one request at
+ * a time for {@code durationSeconds} and the run prints throughput, error count and latency
+ * percentiles. Requests shed by admission control (429 and 503) are counted apart from other
+ * errors and their latencies are reported separately, so that under overload the percentiles of
+ * the admitted requests show whether admission control holds them. With {@code honourRetryAfter}
+ * a shed client waits for the {@code Retry-After} it was given, as a well-behaved client would,
+ * instead of retrying at once.
+ * <p>
+ * Usage: {@code LoadTest <url> <concurrency> <durationSeconds> [honourRetryAfter]}
+ */
+public class LoadTest {
+
+    private static final int MAX_SAMPLES_PER_CLIENT = 1 << 16;
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8081/user/1");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        boolean honourRetryAfter = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        long[][] samples = new long[concurrency][MAX_SAMPLES_PER_CLIENT];
+        int[] counts = new int[concurrency];
+        LongAdder errors = new LongAdder();
+        LongAdder shed = new LongAdder();
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                int slot = c;
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        boolean wasShed = false;
+                        long retryAfterSeconds = 0;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            wasShed = response.statusCode() == 429 || response.statusCode() == 503;
+                            if (wasShed) {
+                                shed.increment();
+                                retryAfterSeconds = response.headers().firstValueAsLong("Retry-After").orElse(0);
+                            } else if (response.statusCode() >= 400) {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                        long elapsed = System.nanoTime() - started;
+                        int n = counts[slot]++;
+                        // Shed requests are stored negated and split out below.
+                        samples[slot][n % MAX_SAMPLES_PER_CLIENT] = wasShed ? -elapsed : elapsed;
+                        completed.incrementAndGet();
+                        if (honourRetryAfter && retryAfterSeconds > 0) {
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(retryAfterSeconds));
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        int total = 0;
+        for (int c = 0; c < concurrency; c++) {
+            total += Math.min(counts[c], MAX_SAMPLES_PER_CLIENT);
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (int c = 0; c < concurrency; c++) {
+            int n = Math.min(counts[c], MAX_SAMPLES_PER_CLIENT);
+            System.arraycopy(samples[c], 0, latencies, offset, n);
+            offset += n;
+        }
+        Arrays.sort(latencies);
+        int firstAdmitted = 0;
+        while (firstAdmitted < latencies.length && latencies[firstAdmitted] < 0) {
+            firstAdmitted++;
+        }
+        long[] admitted = Arrays.copyOfRange(latencies, firstAdmitted, latencies.length);
+        long[] rejected = new long[firstAdmitted];
+        for (int i = 0; i < firstAdmitted; i++) {
+            rejected[i] = -latencies[firstAdmitted - 1 - i];
+        }
+
+        System.out.printf("url=%s concurrency=%d duration=%ds%n", uri, concurrency, durationSeconds);
+        System.out.printf("requests=%d errors=%d shed=%d throughput=%.1f req/s%n",
+                completed.get(), errors.sum(), shed.sum(), completed.get() / (double) durationSeconds);
+        printPercentiles("admitted", admitted);
+        if (rejected.length > 0) {
+            printPercentiles("shed", rejected);
+        }
+    }
+
+    private static void printPercentiles(String label, long[] sorted) {
+        System.out.printf("%s: p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n", label,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,102 @@
+package az.ingress.mapstruct.admission;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounds in-flight requests with a limit that follows latency (AIMD): while the recent latency
+ * stays within {@code latencyTolerance} times the baseline the limit grows by about one per window
+ * of {@code limit} completions, and when it gets slower it shrinks by 10%, at most once per observed
+ * latency so a single slow burst cannot collapse it. Recent latency is a short moving average, so
+ * one GC pause does not count as congestion; the baseline is the lowest latency seen, drifting
+ * slowly upwards so that it recovers when the floor genuinely moves.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int BASELINE_DRIFT_SHIFT = 10;
+    private static final int RECENT_SHIFT = 3;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong lastDecrease;
+    private volatile long baselineNanos;
+    private volatile long recentNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        this(initialLimit, minLimit, maxLimit, latencyTolerance, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, LongSupplier clock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit || latencyTolerance < 1) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= initialLimit <= maxLimit and latencyTolerance >= 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.clock = clock;
+        this.limit = new AtomicInteger(initialLimit);
+        this.lastDecrease = new AtomicLong(clock.getAsLong());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the permit of a request that took {@code latencyNanos} and adjusts the limit.
+     */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        long baseline = updateBaseline(latencyNanos);
+        long recent = updateRecent(latencyNanos);
+        int current = limit.get();
+        if (recent > baseline * latencyTolerance) {
+            long now = clock.getAsLong();
+            long last = lastDecrease.get();
+            if (now - last >= recent && lastDecrease.compareAndSet(last, now)) {
+                limit.compareAndSet(current, Math.max(minLimit, (int) (current * BACKOFF_RATIO)));
+            }
+        } else if (inFlightBefore * 2 >= current && current < maxLimit
+                && ThreadLocalRandom.current().nextInt(current) == 0) {
+            limit.compareAndSet(current, current + 1);
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private long updateBaseline(long sample) {
+        long baseline = baselineNanos;
+        long next = baseline == 0 || sample < baseline ? sample : baseline + ((sample - baseline) >> BASELINE_DRIFT_SHIFT);
+        // Racy on purpose, here and in updateRecent: a lost update only delays convergence by one sample.
+        baselineNanos = Math.max(next, 1);
+        return next;
+    }
+
+    private long updateRecent(long sample) {
+        long recent = recentNanos;
+        long next = recent == 0 ? sample : recent + ((sample - recent) >> RECENT_SHIFT);
+        recentNanos = next;
+        return next;
+    }
+}
@@ -0,0 +1,130 @@
+package az.ingress.mapstruct.admission;
+
+import az.ingress.mapstruct.error.RequestThrottled;
+import az.ingress.mapstruct.error.ServiceOverloaded;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits or sheds a request before its handler runs, using the limits configured for its
+ * {@code "METHOD /pattern"} in {@link AdmissionProperties}. Limits are resolved once per handler
+ * method, so the per-request cost is a map lookup plus a CAS on the token bucket and the
+ * concurrency limiter. A concurrency permit is held until the request completes, including the
+ * async dispatch of streaming endpoints.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+    static final String SHED_METRIC = "http.server.requests.shed";
+    static final String LIMIT_METRIC = "http.server.requests.concurrency.limit";
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, Admission> admissions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Admission admission = admissions.computeIfAbsent(handlerMethod.getMethod(), method -> admission(request));
+        if (admission.bucket != null) {
+            long waitNanos = admission.bucket.tryAcquire();
+            if (waitNanos > 0) {
+                admission.throttled.increment();
+                throw new RequestThrottled(admission.throttledMessage,
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+            }
+        }
+        if (admission.limiter != null) {
+            if (!admission.limiter.tryAcquire()) {
+                // A shed request was never served, so it must not also use up the rate limit.
+                if (admission.bucket != null) {
+                    admission.bucket.refund();
+                }
+                admission.overloaded.increment();
+                throw admission.overloadedError;
+            }
+            request.setAttribute(PERMIT_ATTRIBUTE, new Permit(admission.limiter, System.nanoTime()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.limiter.release(System.nanoTime() - permit.startedNanos);
+        }
+    }
+
+    private Admission admission(HttpServletRequest request) {
+        String endpoint = request.getMethod() + " " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        AdmissionProperties.RateLimit rateLimit = properties.getRateLimits().get(endpoint);
+        AdmissionProperties.ConcurrencyLimit concurrencyLimit = properties.getConcurrencyLimits().get(endpoint);
+        if (rateLimit == null && concurrencyLimit == null) {
+            return Admission.UNLIMITED;
+        }
+        TokenBucket bucket = rateLimit == null ? null
+                : new TokenBucket(rateLimit.getPermitsPerSecond(), rateLimit.getBurst());
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimit == null ? null
+                : new AdaptiveConcurrencyLimiter(concurrencyLimit.getInitialLimit(), concurrencyLimit.getMinLimit(),
+                concurrencyLimit.getMaxLimit(), concurrencyLimit.getLatencyTolerance());
+        String uri = endpoint.substring(endpoint.indexOf(' ') + 1);
+        if (limiter != null) {
+            Gauge.builder(LIMIT_METRIC, limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry);
+        }
+        log.info("Admission control for {}: rate limit {}, concurrency limit {}", endpoint, rateLimit, concurrencyLimit);
+        return new Admission("Rate limit exceeded for " + endpoint,
+                new ServiceOverloaded("Too many concurrent requests for " + endpoint), bucket, limiter,
+                shedCounter(request.getMethod(), uri, "throttled"), shedCounter(request.getMethod(), uri, "overloaded"));
+    }
+
+    private Counter shedCounter(String method, String uri, String reason) {
+        return Counter.builder(SHED_METRIC)
+                .tag("method", method)
+                .tag("uri", uri)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Limits of one endpoint, with its rejections prepared up front; the overload error is stackless
+     * and immutable, so a single instance is thrown for every shed request.
+     */
+    @RequiredArgsConstructor
+    private static final class Admission {
+        static final Admission UNLIMITED = new Admission(null, null, null, null, null, null);
+
+        final String throttledMessage;
+        final ServiceOverloaded overloadedError;
+        final TokenBucket bucket;
+        final AdaptiveConcurrencyLimiter limiter;
+        final Counter throttled;
+        final Counter overloaded;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Permit {
+        final AdaptiveConcurrencyLimiter limiter;
+        final long startedNanos;
+    }
+}
@@ -0,0 +1,39 @@
+package az.ingress.mapstruct.admission;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint admission limits under {@code app.admission}, keyed by {@code "METHOD /pattern"}
+ * exactly as mapped in the controller, e.g. {@code "[GET /user/{id}]"} in YAML.
+ */
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+    boolean enabled;
+    Map<String, RateLimit> rateLimits = new HashMap<>();
+    Map<String, ConcurrencyLimit> concurrencyLimits = new HashMap<>();
+
+    @Data
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class RateLimit {
+        double permitsPerSecond;
+        int burst = 1;
+    }
+
+    @Data
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class ConcurrencyLimit {
+        int initialLimit = 16;
+        int minLimit = 1;
+        int maxLimit = 64;
+        double latencyTolerance = 2.0;
+    }
+}
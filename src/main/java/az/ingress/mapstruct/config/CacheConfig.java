@@ -0,0 +1,22 @@
+package az.ingress.mapstruct.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * Orders the caching advice outside the transaction advice, so {@code @CachePut} and
+ * {@code @CacheEvict} only run once the transaction has committed. Evicting inside it would let a
+ * concurrent {@code getById} load the row as it was before the commit and cache it until the TTL.
+ */
+@Configuration
+@EnableCaching(order = CacheConfig.CACHE_ADVICE_ORDER)
+@EnableTransactionManagement(proxyTargetClass = true, order = CacheConfig.TRANSACTION_ADVICE_ORDER)
+public class CacheConfig {
+
+    public static final String USERS_CACHE = "users";
+
+    static final int CACHE_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+    static final int TRANSACTION_ADVICE_ORDER = Ordered.LOWEST_PRECEDENCE;
+}
@@ -0,0 +1,25 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.embedded.EmbeddedProperties;
+import az.ingress.mapstruct.embedded.EmbeddedTransactionManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Runs the service on the in-process user store instead of PostgreSQL:
+ * {@code --spring.profiles.active=embedded}. application-embedded.yaml switches off the data
+ * source, JPA and Flyway auto-configuration, so the embedded repositories are the only ones.
+ */
+@Configuration
+@Profile("embedded")
+@EnableConfigurationProperties(EmbeddedProperties.class)
+public class EmbeddedStorageConfig {
+
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new EmbeddedTransactionManager();
+    }
+}
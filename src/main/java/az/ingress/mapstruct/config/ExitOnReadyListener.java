@@ -0,0 +1,32 @@
+package az.ingress.mapstruct.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shuts the application down as soon as it is ready when {@code app.startup.exit-on-ready=true},
+ * which is how the CDS training run records the classes loaded during startup. The flag is read at
+ * runtime rather than through a condition so it still works in AOT-processed and native builds.
+ */
+@Component
+@Slf4j
+public class ExitOnReadyListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final boolean exitOnReady;
+
+    public ExitOnReadyListener(@Value("${app.startup.exit-on-ready:false}") boolean exitOnReady) {
+        this.exitOnReady = exitOnReady;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (exitOnReady) {
+            log.info("Ready in {} ms, exiting as requested by app.startup.exit-on-ready", event.getTimeTaken().toMillis());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package az.ingress.mapstruct.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@Slf4j
+public class FlywayConfig {
+    static final String METRIC_NAME = "schema.migration";
+
+    /**
+     * Times the migration run, which sits on the startup path whenever Flyway is enabled, and
+     * records it as {@value #METRIC_NAME} tagged with whether anything was applied.
+     */
+    @Bean
+    public FlywayMigrationStrategy timedMigrationStrategy(ObjectProvider<MeterRegistry> meterRegistry) {
+        return flyway -> {
+            long started = System.nanoTime();
+            MigrateResult result = flyway.migrate();
+            long elapsed = System.nanoTime() - started;
+            String outcome = result.migrationsExecuted > 0 ? "applied" : "up-to-date";
+            String version = result.targetSchemaVersion != null ? result.targetSchemaVersion : result.initialSchemaVersion;
+            meterRegistry.ifAvailable(registry -> Timer.builder(METRIC_NAME)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS));
+            log.info("Schema migration {} in {} ms: {} migrations applied, now at version {}", outcome,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), result.migrationsExecuted, version);
+        };
+    }
+
+    /**
+     * Flyway holds its PostgreSQL lock in an open transaction by default, and CREATE INDEX
+     * CONCURRENTLY waits for every older transaction to end, that one included. A session-level
+     * lock lets the non-transactional migrations finish.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer sessionLevelMigrationLock() {
+        return configuration -> configuration.configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
+    }
+}
@@ -0,0 +1,59 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.error.ExceptionResponse;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Reflection and proxies the AOT engine cannot infer on its own when building a native image. Controller
+ * signatures, entities and Spring Data projections are covered by Spring; Lombok is compile-time
+ * only and the MapStruct mapper is a plain Spring bean, so neither needs hints.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.UserRuntimeHints.class)
+@RegisterReflectionForBinding({UserResponse.class, BatchItemResponse.class, UserSearchRequest.class, ExceptionResponse.class})
+public class NativeHintsConfig {
+
+    /**
+     * Classes Caffeine generates for {@code spring.cache.caffeine.spec} (strong keys and values,
+     * stats, maximum size, expire after write) and loads by name. Changing the spec changes them.
+     */
+    static final List<String> CAFFEINE_CACHE_CLASSES = List.of(
+            "com.github.benmanes.caffeine.cache.SSSMSW",
+            "com.github.benmanes.caffeine.cache.SSSMS",
+            "com.github.benmanes.caffeine.cache.SSS",
+            "com.github.benmanes.caffeine.cache.SS",
+            "com.github.benmanes.caffeine.cache.PSWMS",
+            "com.github.benmanes.caffeine.cache.PSW",
+            "com.github.benmanes.caffeine.cache.PS");
+
+    static class UserRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // StatementCountingDataSource proxies the JDBC connections and plain statements.
+            hints.proxies().registerJdkProxy(Connection.class);
+            hints.proxies().registerJdkProxy(Statement.class);
+            // JPQL "select new UserResponse(...)" projections.
+            hints.reflection().registerType(UserResponse.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(UserChangeResponse.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            for (String type : CAFFEINE_CACHE_CLASSES) {
+                hints.reflection().registerType(TypeReference.of(type),
+                        MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            }
+        }
+    }
+}
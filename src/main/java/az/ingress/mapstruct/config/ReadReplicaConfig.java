@@ -0,0 +1,107 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.datasource.ReadYourWritesFilter;
+import az.ingress.mapstruct.datasource.ReplicaProperties;
+import az.ingress.mapstruct.datasource.ReplicaRoutingDataSource;
+import az.ingress.mapstruct.datasource.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured data source with one that routes read-only transactions to
+ * {@code app.replicas.pools} and everything else to {@code spring.datasource}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReadReplicaConfig {
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+    // Hikari replaces shorter connection and validation timeouts with its defaults.
+    private static final long MIN_HIKARI_TIMEOUT_MILLIS = 250;
+
+    @Bean
+    @ConfigurationProperties(HIKARI_PREFIX)
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(ReplicaProperties properties, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        List<ReplicaProperties.Pool> pools = properties.getPools();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        Map<String, DataSource> checks = new LinkedHashMap<>();
+        for (int i = 0; i < pools.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            binder.bind(HIKARI_PREFIX, Bindable.ofInstance(replica));
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(pools.get(i).getUrl());
+            replica.setUsername(pools.get(i).getUsername());
+            replica.setPassword(pools.get(i).getPassword());
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.put(replica.getPoolName(), replica);
+            checks.put(replica.getPoolName(), checkDataSource(replica, properties.getCheckTimeout()));
+        }
+        return new ReplicaSet(replicas, checks, properties);
+    }
+
+    /**
+     * One-connection pool for a replica's health checks. It gives up on a connection after the
+     * check timeout rather than the main pool's connection timeout, and does not fail at startup
+     * when the replica is down.
+     */
+    private static HikariDataSource checkDataSource(HikariDataSource replica, Duration checkTimeout) {
+        HikariDataSource check = new HikariDataSource();
+        check.setPoolName(replica.getPoolName() + "-check");
+        check.setJdbcUrl(replica.getJdbcUrl());
+        check.setUsername(replica.getUsername());
+        check.setPassword(replica.getPassword());
+        check.setReadOnly(true);
+        check.setMaximumPoolSize(1);
+        long timeoutMillis = Math.max(checkTimeout.toMillis(), MIN_HIKARI_TIMEOUT_MILLIS);
+        check.setConnectionTimeout(timeoutMillis);
+        check.setValidationTimeout(timeoutMillis);
+        check.setInitializationFailTimeout(-1);
+        return check;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, ReplicaSet replicaSet) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicaSet));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.getReadYourWritesWindow()));
+        registration.addUrlPatterns("/user/*");
+        return registration;
+    }
+}
@@ -0,0 +1,21 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.datasource.DataSourceRouting;
+import az.ingress.mapstruct.metrics.SqlStatementCounter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+@Configuration
+public class TaskDecoratorConfig {
+
+    /**
+     * Lets a streaming response body, written on the application task executor, keep the request's
+     * pin to the primary and its SQL statement counter. Boot only applies a decorator when there
+     * is exactly one, so both go into this bean.
+     */
+    @Bean
+    public TaskDecorator requestStateTaskDecorator() {
+        return task -> DataSourceRouting.propagate(SqlStatementCounter.propagate(task));
+    }
+}
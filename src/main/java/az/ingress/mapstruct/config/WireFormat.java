@@ -0,0 +1,68 @@
+package az.ingress.mapstruct.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Representations the {@code /user} endpoints can answer in. JSON is the default; Smile and CBOR
+ * are binary encodings of the same Jackson model for internal clients that ask for them.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum WireFormat {
+    JSON(MediaType.APPLICATION_JSON, MediaType.parseMediaType("application/x-ndjson"), ""),
+    SMILE(MediaType.parseMediaType(WireFormat.SMILE_VALUE), MediaType.parseMediaType(WireFormat.SMILE_VALUE), "-smile"),
+    CBOR(MediaType.APPLICATION_CBOR, MediaType.parseMediaType(WireFormat.CBOR_SEQ_VALUE), "-cbor");
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    private final MediaType mediaType;
+    /**
+     * Type of a stream of root values: newline-delimited JSON, concatenated Smile values or a
+     * CBOR sequence (RFC 8742).
+     */
+    private final MediaType sequenceMediaType;
+    private final String etagSuffix;
+
+    /**
+     * Format preferred by an {@code Accept} header, by quality and then specificity, falling back
+     * to JSON when the header is missing, unparsable or names none of them. A type with {@code q=0}
+     * is refused, including when a wildcard would otherwise cover it.
+     */
+    public static WireFormat negotiate(String accept, boolean sequence) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        List<MediaType> refused = new ArrayList<>();
+        List<MediaType> wanted = new ArrayList<>(accepted.size());
+        for (MediaType type : accepted) {
+            (type.getQualityValue() == 0 ? refused : wanted).add(type);
+        }
+        MimeTypeUtils.sortBySpecificity(wanted);
+        // Stable, so types of equal quality keep their specificity order.
+        wanted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : wanted) {
+            for (WireFormat format : values()) {
+                MediaType offered = sequence ? format.sequenceMediaType : format.mediaType;
+                if (type.includes(offered) && refused.stream().noneMatch(r -> r.includes(offered))) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,39 @@
+package az.ingress.mapstruct.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Reads and writes Smile and CBOR with the mappers from {@link WireFormatMappers} instead of the
+ * defaults Spring MVC registers when the formats are on the classpath, which would miss the
+ * application's Jackson configuration. They sit right after the JSON converter, so JSON is still
+ * chosen when the client does not ask for a binary format.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    private final WireFormatMappers wireFormatMappers;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter
+                || converter instanceof MappingJackson2CborHttpMessageConverter);
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        converters.addAll(Math.min(json + 1, converters.size()), List.of(
+                new MappingJackson2SmileHttpMessageConverter(wireFormatMappers.get(WireFormat.SMILE)),
+                new MappingJackson2CborHttpMessageConverter(wireFormatMappers.get(WireFormat.CBOR))));
+    }
+}
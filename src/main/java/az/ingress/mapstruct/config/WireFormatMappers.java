@@ -0,0 +1,52 @@
+package az.ingress.mapstruct.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link ObjectMapper} per {@link WireFormat}, the binary ones copied from the application's
+ * JSON mapper so that every format shares its modules and features.
+ */
+@Component
+public class WireFormatMappers {
+
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+
+    public WireFormatMappers(ObjectMapper objectMapper) {
+        mappers.put(WireFormat.JSON, objectMapper);
+        mappers.put(WireFormat.SMILE, objectMapper.copyWith(new SmileFactory()));
+        mappers.put(WireFormat.CBOR, objectMapper.copyWith(new CBORFactory()));
+    }
+
+    public ObjectMapper get(WireFormat format) {
+        return mappers.get(format);
+    }
+
+    /**
+     * Re-encodes a JSON document token by token, without binding it to objects.
+     */
+    public byte[] transcode(byte[] json, WireFormat format) {
+        if (format == WireFormat.JSON) {
+            return json;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2);
+        try (JsonParser parser = mappers.get(WireFormat.JSON).createParser(json);
+             JsonGenerator generator = mappers.get(format).createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,69 @@
+package az.ingress.mapstruct.controller;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/user")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserController {
+    private final ReactiveUserService userService;
+
+    @PostMapping
+    public Mono<UserResponse> create(@Valid @RequestBody UserRequest request) {
+        return userService.create(request);
+    }
+
+    @GetMapping("/all")
+    public Flux<UserResponse> getAllUsers() {
+        return userService.getAllUsers();
+    }
+
+    @GetMapping
+    public Mono<UserPageResponse> getUsers(@RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return userService.getUsersPage(cursor, size);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> streamAllUsers() {
+        return userService.getAllUsers();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserResponse>> getUserById(@PathVariable Long id) {
+        return userService.getById(id).map(ReactiveUserController::withETag);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteUserById(@PathVariable Long id) {
+        return userService.deleteUserById(id);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<UserResponse>> updateUser(@PathVariable Long id, @Valid @RequestBody UserRequest request,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.updateUser(id, request, UserController.expectedVersion(id, ifMatch))
+                .map(ReactiveUserController::withETag);
+    }
+
+    private static ResponseEntity<UserResponse> withETag(UserResponse user) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (user.getVersion() != null) {
+            response.eTag(user.getVersion().toString());
+        }
+        return response.body(user);
+    }
+}
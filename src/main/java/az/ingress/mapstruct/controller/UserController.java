@@ -1,33 +1,128 @@
 package az.ingress.mapstruct.controller;
 
+import az.ingress.mapstruct.config.WireFormat;
+import az.ingress.mapstruct.config.WireFormatMappers;
+import az.ingress.mapstruct.dto.request.UserBatchUpdateRequest;
 import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserChangePageResponse;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
 import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.dto.response.UserSliceResponse;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import az.ingress.mapstruct.service.UserBatchService;
+import az.ingress.mapstruct.service.UserIdempotencyService;
+import az.ingress.mapstruct.service.UserListSnapshot;
+import az.ingress.mapstruct.service.UserListSnapshotService;
 import az.ingress.mapstruct.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/user")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class UserController {
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String GZIP = "gzip";
+    private static final SerializedString NDJSON_SEPARATOR = new SerializedString("\n");
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final UserService userService;
+    private final UserBatchService userBatchService;
+    private final UserIdempotencyService userIdempotencyService;
+    private final UserListSnapshotService userListSnapshotService;
+    private final WireFormatMappers wireFormatMappers;
 
     @PostMapping
-    public UserResponse create(@Valid @RequestBody UserRequest request) {
-        return userService.create(request);
+    public UserResponse create(@Valid @RequestBody UserRequest request,
+                               @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return userService.create(request);
+        }
+        return userIdempotencyService.create(idempotencyKey, request);
+    }
+
+    @PostMapping("/batch")
+    public List<BatchItemResponse> createAll(@RequestBody List<UserRequest> requests) {
+        return userBatchService.createAll(requests);
+    }
+
+    @PutMapping("/batch")
+    public List<BatchItemResponse> updateAll(@RequestBody List<UserBatchUpdateRequest> requests) {
+        return userBatchService.updateAll(requests);
+    }
+
+    @DeleteMapping("/batch")
+    public List<BatchItemResponse> deleteAll(@RequestBody List<Long> ids) {
+        return userBatchService.deleteAll(ids);
     }
 
     @GetMapping("/all")
-    public List<UserResponse> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<byte[]> getAllUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                              WebRequest webRequest) {
+        UserListSnapshot snapshot = userListSnapshotService.current();
+        WireFormat format = WireFormat.negotiate(accept, false);
+        boolean gzip = format == WireFormat.JSON && acceptsGzip(acceptEncoding);
+        if (webRequest.checkNotModified(gzip ? snapshot.getGzipEtag() : snapshot.getEtag(format))) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(snapshot.getGzip());
+        }
+        return response.body(snapshot.getBody(format, wireFormatMappers));
+    }
+
+    @GetMapping
+    public UserPageResponse getUsers(@RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "20") int size) {
+        return userService.getUsersPage(cursor, size);
+    }
+
+    @GetMapping("/search")
+    public UserSliceResponse search(@Valid UserSearchRequest request) {
+        return userService.search(request);
+    }
+
+    @GetMapping("/changes")
+    public UserChangePageResponse getChanges(@RequestParam(defaultValue = "0") long since,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        return userService.getChanges(since, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = {APPLICATION_NDJSON, WireFormat.SMILE_VALUE, WireFormat.CBOR_SEQ_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        WireFormat format = WireFormat.negotiate(accept, true);
+        ObjectMapper mapper = wireFormatMappers.get(format);
+        return ResponseEntity.ok().contentType(format.getSequenceMediaType()).body(out -> {
+            try (JsonGenerator generator = mapper.createGenerator(out)) {
+                if (format == WireFormat.JSON) {
+                    generator.setRootValueSeparator(NDJSON_SEPARATOR);
+                }
+                userService.streamAllUsers(generator);
+            }
+        });
     }
 
     @GetMapping("/{id}")
-    public UserResponse getUserById(@PathVariable Long id) {
-        return userService.getById(id);
+    public ResponseEntity<UserResponse> getUserById(@PathVariable Long id) {
+        return withETag(userService.getById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -36,7 +131,73 @@ public class UserController {
     }
 
     @PutMapping("/{id}")
-    public UserResponse deleteUserById(@PathVariable Long id, @Valid @RequestBody UserRequest request) {
-        return userService.updateUser(id, request);
+    public ResponseEntity<UserResponse> deleteUserById(@PathVariable Long id, @Valid @RequestBody UserRequest request,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(userService.updateUser(id, request, expectedVersion(id, ifMatch)));
+    }
+
+    /**
+     * Version the client expects from a strong {@code If-Match} ETag, or {@code null} for an
+     * unconditional update. Weak or foreign tags can never match a row version.
+     */
+    static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the conflict below
+            }
+        }
+        throw new UserVersionConflict("If-Match does not match user with id: " + id, null);
+    }
+
+    /**
+     * Whether {@code Accept-Encoding} allows gzip: listed by name, or covered by {@code *}, with a
+     * non-zero quality. An explicit {@code gzip;q=0} wins over the wildcard.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (GZIP.equalsIgnoreCase(name)) {
+                gzip = quality(parts);
+            } else if ("*".equals(name)) {
+                any = quality(parts);
+            }
+        }
+        double q = gzip != null ? gzip : any != null ? any : 0;
+        return q > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    // A quality we cannot read is not consent.
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static ResponseEntity<UserResponse> withETag(UserResponse user) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (user.getVersion() != null) {
+            response.eTag(user.getVersion().toString());
+        }
+        return response.body(user);
     }
 }
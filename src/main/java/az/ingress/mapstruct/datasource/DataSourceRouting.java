@@ -0,0 +1,58 @@
+package az.ingress.mapstruct.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that sends read-only transactions to the primary as well: for a client's
+ * reads right after its own write, and for reads that fill a cache living longer than the replica
+ * lag. The connection is chosen at the first statement of a transaction, so the override has to be
+ * in place by then. Without replicas configured it has no effect.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+    private static final Scope KEEP = () -> {
+    };
+    private static final Scope CLEAR = PRIMARY_FORCED::remove;
+
+    private DataSourceRouting() {
+    }
+
+    public static Scope forcePrimary() {
+        if (isPrimaryForced()) {
+            return KEEP;
+        }
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        return CLEAR;
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        try (Scope ignored = forcePrimary()) {
+            return action.get();
+        }
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+
+    /**
+     * Carries the submitting thread's override into {@code task}, e.g. a streaming response body
+     * written on an executor thread.
+     */
+    public static Runnable propagate(Runnable task) {
+        if (!isPrimaryForced()) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = forcePrimary()) {
+                task.run();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
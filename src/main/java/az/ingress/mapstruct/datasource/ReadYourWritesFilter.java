@@ -0,0 +1,75 @@
+package az.ingress.mapstruct.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-your-writes with replicas: a write hands the client a cookie that keeps its requests on the
+ * primary until the window has passed, by which time a replica still serving reads has caught up.
+ * The cookie holds the deadline, so it holds across instances and even if the client keeps it too long.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    static final String COOKIE = "primary-until";
+
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    public ReadYourWritesFilter(Duration window) {
+        this(window, System::currentTimeMillis);
+    }
+
+    ReadYourWritesFilter(Duration window, LongSupplier clock) {
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = clock.getAsLong();
+        boolean write = isWrite(request.getMethod());
+        if (write) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + windowMillis));
+            cookie.setMaxAge((int) Math.max((windowMillis + 999) / 1000, 1));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+        if (!write && !pinned(request, now)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.forcePrimary()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    private static boolean pinned(HttpServletRequest request, long now) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > now;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package az.ingress.mapstruct.datasource;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas under {@code app.replicas}. Replica pools take their sizing and timeouts from
+ * {@code spring.datasource.hikari}, like the primary.
+ */
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "app.replicas")
+public class ReplicaProperties {
+
+    /**
+     * Seconds the replica is behind, zero when it has replayed everything it received. Replay
+     * timestamps alone would report an idle primary as lag.
+     */
+    public static final String POSTGRES_LAG_QUERY = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() "
+            + "then 0 else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+    boolean enabled;
+    List<Pool> pools = new ArrayList<>();
+    Duration maxLag = Duration.ofSeconds(1);
+    Duration checkInterval = Duration.ofSeconds(2);
+    Duration checkTimeout = Duration.ofSeconds(1);
+    Duration readYourWritesWindow = Duration.ofSeconds(5);
+    String lagQuery = POSTGRES_LAG_QUERY;
+
+    @Data
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Pool {
+        String url;
+        String username;
+        String password;
+    }
+}
@@ -0,0 +1,167 @@
+package az.ingress.mapstruct.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replica pools with their last health check. A replica serves reads only while its lag query
+ * answers within the timeout and reports no more than the allowed lag; {@link #nextHealthy()}
+ * rotates over those that do.
+ * <p>
+ * Replicas start unhealthy, so reads go to the primary until their first check answers; that check
+ * runs in the background and does not hold up startup. Checks of different replicas run in
+ * parallel, each on its own check data source, whose connection wait should be bounded by
+ * {@code app.replicas.check-timeout} so a dead host cannot stall the round.
+ */
+@Slf4j
+public class ReplicaSet implements MeterBinder, AutoCloseable {
+    static final String LAG_METRIC = "datasource.replica.lag";
+    static final String HEALTHY_METRIC = "datasource.replica.healthy";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final int checkTimeoutSeconds;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ExecutorService checker;
+
+    public ReplicaSet(Map<String, DataSource> dataSources, ReplicaProperties properties) {
+        this(dataSources, Map.of(), properties);
+    }
+
+    /**
+     * @param checkDataSources data sources for the health checks by replica name; a replica without
+     *                         one is checked through its own pool
+     */
+    public ReplicaSet(Map<String, DataSource> dataSources, Map<String, DataSource> checkDataSources,
+                      ReplicaProperties properties) {
+        dataSources.forEach((name, dataSource) ->
+                replicas.add(new Replica(name, dataSource, checkDataSources.getOrDefault(name, dataSource))));
+        this.lagQuery = properties.getLagQuery();
+        this.checkTimeoutSeconds = (int) Math.max(properties.getCheckTimeout().toSeconds(), 1);
+        this.maxLagSeconds = properties.getMaxLag().toMillis() / 1000.0;
+        this.checker = Executors.newFixedThreadPool(Math.max(replicas.size(), 1),
+                Thread.ofPlatform().daemon().name("replica-check-", 1).factory());
+        replicas.forEach(Replica::startCheck);
+    }
+
+    Map<String, DataSource> dataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return dataSources;
+    }
+
+    /**
+     * Name of the next replica in rotation that can serve reads, or {@code null} when none can.
+     */
+    String nextHealthy() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks every replica in parallel and returns once all have answered. A replica whose previous
+     * check is still running is not checked twice; this waits for that check instead.
+     */
+    @Scheduled(fixedDelayString = "${app.replicas.check-interval:PT2S}")
+    public void check() {
+        CompletableFuture.allOf(replicas.stream().map(Replica::startCheck).toArray(CompletableFuture[]::new)).join();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder(LAG_METRIC, replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder(HEALTHY_METRIC, replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.checkDataSource != replica.dataSource && replica.checkDataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private class Replica {
+        final String name;
+        final DataSource dataSource;
+        final DataSource checkDataSource;
+        volatile boolean healthy;
+        volatile double lagSeconds = Double.NaN;
+        private CompletableFuture<Void> running = CompletableFuture.completedFuture(null);
+
+        Replica(String name, DataSource dataSource, DataSource checkDataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.checkDataSource = checkDataSource;
+        }
+
+        synchronized CompletableFuture<Void> startCheck() {
+            if (running.isDone()) {
+                running = CompletableFuture.runAsync(this::check, checker);
+            }
+            return running;
+        }
+
+        void check() {
+            boolean wasHealthy = healthy;
+            try (Connection connection = checkDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(checkTimeoutSeconds);
+                try (ResultSet result = statement.executeQuery(lagQuery)) {
+                    result.next();
+                    lagSeconds = result.getDouble(1);
+                }
+                healthy = lagSeconds <= maxLagSeconds;
+                if (wasHealthy && !healthy) {
+                    log.warn("Replica {} is {} s behind, reads go to the primary", name, lagSeconds);
+                }
+            } catch (SQLException | RuntimeException e) {
+                lagSeconds = Double.NaN;
+                healthy = false;
+                if (wasHealthy) {
+                    log.warn("Replica {} failed its health check, reads go to the primary: {}", name, e.getMessage());
+                }
+            }
+            if (!wasHealthy && healthy) {
+                log.info("Replica {} is serving reads, {} s behind", name, lagSeconds);
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package az.ingress.mapstruct.dto.projection;
+
+public interface UserView {
+    String getName();
+
+    String getSurname();
+
+    Integer getAge();
+
+    Long getVersion();
+}
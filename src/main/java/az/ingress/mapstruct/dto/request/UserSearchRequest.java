@@ -0,0 +1,30 @@
+package az.ingress.mapstruct.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+public class UserSearchRequest {
+    String name;
+    String surname;
+
+    @Min(value = 0)
+    Integer minAge;
+    @Min(value = 0)
+    Integer maxAge;
+
+    String sort;
+
+    @Min(value = 0)
+    int page;
+    @Min(value = 1)
+    @Max(value = 100)
+    @Builder.Default
+    int size = 20;
+}
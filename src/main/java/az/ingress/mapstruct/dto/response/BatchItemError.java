@@ -0,0 +1,7 @@
+package az.ingress.mapstruct.dto.response;
+
+public enum BatchItemError {
+    CONSTRAINT_VIOLATION,
+    CONCURRENT_UPDATE,
+    WRITE_FAILED
+}
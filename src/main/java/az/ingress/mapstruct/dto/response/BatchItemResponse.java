@@ -0,0 +1,22 @@
+package az.ingress.mapstruct.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+public class BatchItemResponse {
+    int index;
+    Long id;
+    BatchItemStatus status;
+    UserResponse user;
+    BatchItemError error;
+    Map<String, String> validationErrors;
+}
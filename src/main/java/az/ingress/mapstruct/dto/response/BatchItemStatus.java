@@ -0,0 +1,10 @@
+package az.ingress.mapstruct.dto.response;
+
+public enum BatchItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    INVALID,
+    FAILED
+}
@@ -0,0 +1,27 @@
+package az.ingress.mapstruct.dto.response;
+
+import az.ingress.mapstruct.model.UserChangeType;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+/**
+ * One published user change. {@code name}, {@code surname}, {@code age} and {@code version} are
+ * the state after the change and empty for deletions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+public class UserChangeResponse {
+    Long position;
+    Long userId;
+    UserChangeType type;
+    String name;
+    String surname;
+    Integer age;
+    Long version;
+    Instant changedAt;
+}
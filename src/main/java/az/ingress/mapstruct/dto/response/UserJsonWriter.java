@@ -0,0 +1,37 @@
+package az.ingress.mapstruct.dto.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/**
+ * Writes the {@link UserResponse} body shape straight from column values, so list reads go from
+ * result rows to bytes without a response object or bean serializer per row. Field names are
+ * encoded once. The output must stay identical to what the {@code ObjectMapper} writes for a
+ * {@code UserResponse}.
+ */
+public final class UserJsonWriter {
+
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString SURNAME = new SerializedString("surname");
+    private static final SerializedString AGE = new SerializedString("age");
+
+    private UserJsonWriter() {
+    }
+
+    public static void write(JsonGenerator generator, String name, String surname, Integer age) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(NAME);
+        generator.writeString(name);
+        generator.writeFieldName(SURNAME);
+        generator.writeString(surname);
+        generator.writeFieldName(AGE);
+        if (age == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(age.intValue());
+        }
+        generator.writeEndObject();
+    }
+}
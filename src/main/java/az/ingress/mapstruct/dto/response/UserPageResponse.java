@@ -0,0 +1,16 @@
+package az.ingress.mapstruct.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+public class UserPageResponse {
+    List<UserResponse> users;
+    String nextCursor;
+}
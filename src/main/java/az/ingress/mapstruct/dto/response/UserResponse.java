@@ -1,5 +1,6 @@
 package az.ingress.mapstruct.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -12,4 +13,14 @@ public class UserResponse {
     String name;
     String surname;
     Integer age;
+
+    /**
+     * Row version, exposed to clients as the {@code ETag} header rather than in the body.
+     */
+    @JsonIgnore
+    Long version;
+
+    public UserResponse(String name, String surname, Integer age) {
+        this(name, surname, age, null);
+    }
 }
@@ -0,0 +1,18 @@
+package az.ingress.mapstruct.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+public class UserSliceResponse {
+    List<UserResponse> users;
+    int page;
+    int size;
+    boolean hasNext;
+}
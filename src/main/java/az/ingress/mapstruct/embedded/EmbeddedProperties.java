@@ -0,0 +1,53 @@
+package az.ingress.mapstruct.embedded;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The in-process user store of the {@code embedded} profile, under {@code app.embedded}.
+ */
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "app.embedded")
+public class EmbeddedProperties {
+
+    /**
+     * Holds the snapshot and the log; one instance per directory.
+     */
+    Path dataDir = Path.of("data", "embedded");
+
+    /**
+     * Size of the memory-mapped log. Once it is half full a snapshot empties it in the background;
+     * writes that find it full fail until then.
+     */
+    DataSize logSize = DataSize.ofMegabytes(64);
+    Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * How long a write waits for another transaction to finish with the same user before it fails,
+     * which is also how two transactions waiting on each other come apart.
+     */
+    Duration lockTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Keeps names and surnames in direct memory instead of on the heap.
+     */
+    boolean offHeap = true;
+
+    /**
+     * Flushes every log record to the device before the write returns. Without it a write
+     * survives the process crashing, but not the machine.
+     */
+    boolean fsync;
+
+    /**
+     * Published changes kept for {@code GET /user/changes}; the oldest are dropped beyond it.
+     */
+    int changeCapacity = 100_000;
+}
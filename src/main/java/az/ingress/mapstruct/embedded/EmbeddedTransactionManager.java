@@ -0,0 +1,85 @@
+package az.ingress.mapstruct.embedded;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.SmartTransactionObject;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transactions without a resource behind them. The embedded repositories hold their writes in
+ * transaction synchronizations and apply them before commit, so all this manager has to do is track
+ * which transaction a thread is in, for propagation and rollback-only marks.
+ */
+public class EmbeddedTransactionManager extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+        return new EmbeddedTransaction((State) TransactionSynchronizationManager.getResource(this));
+    }
+
+    @Override
+    protected boolean isExistingTransaction(Object transaction) {
+        return ((EmbeddedTransaction) transaction).state != null;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        State state = new State();
+        ((EmbeddedTransaction) transaction).state = state;
+        TransactionSynchronizationManager.bindResource(this, state);
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        ((EmbeddedTransaction) transaction).state = null;
+        return TransactionSynchronizationManager.unbindResource(this);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        TransactionSynchronizationManager.bindResource(this, suspendedResources);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        // Nothing to write: the repositories did before commit.
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        // Nothing to undo: the repositories drop their writes after completion.
+    }
+
+    @Override
+    protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+        ((EmbeddedTransaction) status.getTransaction()).state.rollbackOnly = true;
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(this);
+    }
+
+    private static final class State {
+        private boolean rollbackOnly;
+    }
+
+    private static final class EmbeddedTransaction implements SmartTransactionObject {
+        private State state;
+
+        private EmbeddedTransaction(State state) {
+            this.state = state;
+        }
+
+        @Override
+        public boolean isRollbackOnly() {
+            return state != null && state.rollbackOnly;
+        }
+
+        @Override
+        public void flush() {
+            // Writes are held until commit; nothing can be flushed earlier.
+        }
+    }
+}
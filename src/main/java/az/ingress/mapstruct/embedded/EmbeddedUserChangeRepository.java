@@ -0,0 +1,122 @@
+package az.ingress.mapstruct.embedded;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.model.UserChange;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import az.ingress.mapstruct.service.UserChangeSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The change feed of the {@code embedded} profile. There is no relay: a transaction's changes get
+ * their feed positions and go to the {@link UserChangeSink} when it commits. The feed is kept in
+ * memory, capped at {@code app.embedded.change-capacity}, and starts empty after a restart; positions
+ * still continue above any handed out before, as they start from the store's write sequence.
+ */
+@Repository
+@Profile("embedded")
+@Slf4j
+public class EmbeddedUserChangeRepository implements UserChangeRepository {
+    private final UserChangeSink sink;
+    private final int capacity;
+    private final ConcurrentNavigableMap<Long, UserChangeResponse> feed = new ConcurrentSkipListMap<>();
+    private long position;
+
+    public EmbeddedUserChangeRepository(EmbeddedUserStore store, UserChangeSink sink, EmbeddedProperties properties) {
+        this.sink = sink;
+        this.capacity = properties.getChangeCapacity();
+        this.position = store.sequence();
+    }
+
+    @Override
+    public <S extends UserChange> S save(S change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(change));
+            return change;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(change);
+        return change;
+    }
+
+    @Override
+    public List<UserChangeResponse> findPublishedAfter(long since, Pageable pageable) {
+        List<UserChangeResponse> changes = new ArrayList<>(Math.min(pageable.getPageSize(), feed.size()));
+        for (UserChangeResponse change : feed.tailMap(since, false).values()) {
+            if (changes.size() == pageable.getPageSize()) {
+                break;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    @Override
+    public synchronized long findLastPosition() {
+        return position;
+    }
+
+    /**
+     * Positions are taken and the changes handed to the sink under one monitor, so the sink sees
+     * them in position order, as it would from the relay.
+     */
+    private synchronized void publish(List<? extends UserChange> changes) {
+        Instant now = Instant.now();
+        List<UserChangeResponse> published = new ArrayList<>(changes.size());
+        for (UserChange change : changes) {
+            change.setFeedPosition(++position);
+            change.setPublishedAt(now);
+            UserChangeResponse response = new UserChangeResponse(change.getFeedPosition(), change.getUserId(),
+                    change.getType(), change.getName(), change.getSurname(), change.getAge(), change.getVersion(),
+                    change.getChangedAt());
+            feed.put(response.getPosition(), response);
+            published.add(response);
+        }
+        while (feed.size() > capacity) {
+            feed.pollFirstEntry();
+        }
+        try {
+            sink.publish(published);
+        } catch (RuntimeException e) {
+            // Unlike the relay there is no row to retry from; the changes stay readable from the feed.
+            log.warn("Could not publish {} user changes", published.size(), e);
+        }
+    }
+
+    private final class Pending implements TransactionSynchronization {
+        private final List<UserChange> changes = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(EmbeddedUserChangeRepository.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(EmbeddedUserChangeRepository.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EmbeddedUserChangeRepository.this);
+            if (status == STATUS_COMMITTED) {
+                publish(changes);
+            }
+        }
+    }
+}
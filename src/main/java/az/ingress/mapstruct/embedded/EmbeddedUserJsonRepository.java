@@ -0,0 +1,45 @@
+package az.ingress.mapstruct.embedded;
+
+import az.ingress.mapstruct.dto.response.UserJsonWriter;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserJsonRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes the users of the {@link EmbeddedUserStore} in chunks, so a slow client of
+ * {@code /user/stream} holds the store's read lock for one chunk at a time rather than throughout.
+ */
+@Repository
+@Profile("embedded")
+@RequiredArgsConstructor
+public class EmbeddedUserJsonRepository implements UserJsonRepository {
+    private static final int CHUNK_SIZE = 500;
+
+    private final EmbeddedUserStore store;
+
+    @Override
+    public void writeAll(JsonGenerator generator) {
+        long afterId = 0L;
+        List<User> chunk;
+        do {
+            chunk = store.findAfter(afterId, CHUNK_SIZE);
+            for (User user : chunk) {
+                try {
+                    UserJsonWriter.write(generator, user.getName(), user.getSurname(), user.getAge());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == CHUNK_SIZE);
+    }
+}
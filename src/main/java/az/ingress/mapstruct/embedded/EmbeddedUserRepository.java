@@ -0,0 +1,193 @@
+package az.ingress.mapstruct.embedded;
+
+import az.ingress.mapstruct.dto.projection.UserView;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link UserRepository} on the {@link EmbeddedUserStore}, with the semantics of the JPA one:
+ * {@link #save} assigns the id and version 0 to new users and checks and increments the version of
+ * existing ones, on the instance passed in. Search compares strings with {@link String#compareTo}
+ * instead of a collation, and puts nulls last in ascending order like PostgreSQL does.
+ */
+@Repository
+@Profile("embedded")
+@RequiredArgsConstructor
+public class EmbeddedUserRepository implements UserRepository {
+    private static final Map<String, Comparator<User>> ASCENDING = Map.of(
+            "id", Comparator.comparing(User::getId),
+            "name", Comparator.comparing(User::getName, Comparator.nullsLast(Comparator.naturalOrder())),
+            "surname", Comparator.comparing(User::getSurname, Comparator.nullsLast(Comparator.naturalOrder())),
+            "age", Comparator.comparing(User::getAge, Comparator.nullsLast(Comparator.naturalOrder())));
+
+    private final EmbeddedUserStore store;
+
+    @Override
+    public <S extends User> S save(S user) {
+        if (user.getVersion() == null) {
+            if (user.getId() != null) {
+                throw new InvalidDataAccessApiUsageException("New user must not have an id: " + user.getId());
+            }
+            User created = store.insert(user.getName(), user.getSurname(), user.getAge());
+            user.setId(created.getId());
+            user.setVersion(created.getVersion());
+            return user;
+        }
+        User updated = store.update(user.getId(), user.getName(), user.getSurname(), user.getAge(), user.getVersion());
+        if (updated == null) {
+            throw new ObjectOptimisticLockingFailureException(User.class, user.getId());
+        }
+        user.setVersion(updated.getVersion());
+        return user;
+    }
+
+    @Override
+    public <S extends User> List<S> saveAll(Iterable<S> users) {
+        List<S> saved = new ArrayList<>();
+        for (S user : users) {
+            saved.add(save(user));
+        }
+        return saved;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(store.find(id));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.findAfter(0L, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> findAllById(Iterable<Long> ids) {
+        List<User> users = new ArrayList<>();
+        for (Long id : ids) {
+            User user = store.find(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public void flush() {
+        // Writes are held under their row locks until the transaction commits and are applied to the
+        // store then; there is no statement to send early.
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        for (User user : findAll()) {
+            store.delete(user.getId());
+        }
+    }
+
+    @Override
+    public List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        List<User> users = store.findAfter(id, (int) pageable.getOffset() + pageable.getPageSize());
+        return new ArrayList<>(users.subList(Math.min((int) pageable.getOffset(), users.size()), users.size()));
+    }
+
+    @Override
+    public Optional<UserResponse> findResponseById(Long id) {
+        return Optional.ofNullable(store.findResponse(id));
+    }
+
+    @Override
+    public Optional<Long> findVersionById(Long id) {
+        return Optional.ofNullable(store.findVersion(id));
+    }
+
+    @Override
+    public List<UserResponse> findAllResponses() {
+        return store.findAllResponses();
+    }
+
+    @Override
+    public int deleteUserById(Long id) {
+        return store.delete(id) == null ? 0 : 1;
+    }
+
+    @Override
+    public List<Long> deleteUsersById(Collection<Long> ids) {
+        List<Long> deleted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (store.delete(id) != null) {
+                deleted.add(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<UserView> updateUser(Long id, String name, String surname, Integer age) {
+        return Optional.ofNullable(store.update(id, name, surname, age, null)).map(View::of);
+    }
+
+    @Override
+    public Optional<UserView> updateUserIfVersion(Long id, String name, String surname, Integer age, Long version) {
+        return Optional.ofNullable(store.update(id, name, surname, age, version)).map(View::of);
+    }
+
+    @Override
+    public Slice<User> search(String namePrefix, String surnamePrefix, Integer minAge, Integer maxAge, Pageable pageable) {
+        List<User> users = store.search(prefix(namePrefix), prefix(surnamePrefix), minAge, maxAge,
+                order(pageable.getSort()), (int) pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = users.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+    }
+
+    /**
+     * {@code null} for id order, which the store can scan without sorting.
+     */
+    private static Comparator<User> order(Sort sort) {
+        Sort.Order byId = sort.getOrderFor("id");
+        if (sort.isUnsorted() || byId != null && byId.isAscending() && sort.toList().size() == 1) {
+            return null;
+        }
+        Comparator<User> order = null;
+        for (Sort.Order property : sort) {
+            Comparator<User> next = ASCENDING.get(property.getProperty());
+            if (next == null) {
+                throw new InvalidDataAccessApiUsageException("Cannot sort users by " + property.getProperty());
+            }
+            if (property.isDescending()) {
+                next = next.reversed();
+            }
+            order = order == null ? next : order.thenComparing(next);
+        }
+        return byId == null ? order.thenComparing(User::getId) : order;
+    }
+
+    private static byte[] prefix(String prefix) {
+        return prefix == null || prefix.isEmpty() ? null : prefix.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record View(String getName, String getSurname, Integer getAge, Long getVersion) implements UserView {
+
+        static UserView of(User user) {
+            return new View(user.getName(), user.getSurname(), user.getAge(), user.getVersion());
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package az.ingress.mapstruct.embedded;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Users kept in process for the {@code embedded} profile. Every write is appended to a
+ * {@link UserLog} and then applied to a {@link UserTable} under one lock; a snapshot of the table,
+ * taken periodically and in the background once the log is half full, lets the log start over, and
+ * startup loads the snapshot and replays the log after it. Ids come from a counter that never goes
+ * back, like the sequence it stands in for.
+ * <p>
+ * Writes are applied when their transaction commits, and logged together with the last one marked,
+ * so other threads only read committed rows and replay drops a transaction cut short. A write holds
+ * its row until the transaction ends; other transactions writing that row wait for it, up to
+ * {@code app.embedded.lock-timeout}. Lookups by id see the transaction's own writes, scans only
+ * committed rows.
+ */
+@Component
+@Profile("embedded")
+@Slf4j
+public class EmbeddedUserStore implements AutoCloseable {
+    static final String SNAPSHOT_FILE = "users.snapshot";
+    static final String LOG_FILE = "users.log";
+    private static final int SNAPSHOT_MAGIC = 0x55535353;
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final int IO_BUFFER = 1 << 16;
+    private static final User UNWRITTEN = new User();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rowLock = new ReentrantLock();
+    private final Condition rowReleased = rowLock.newCondition();
+    private final Map<Long, Transaction> rowOwners = new HashMap<>();
+    private final long lockTimeoutNanos;
+    private final Path snapshotFile;
+    private final UserTable table;
+    private final UserLog userLog;
+    private final Executor snapshotExecutor;
+    private final AtomicBoolean snapshotQueued = new AtomicBoolean();
+    private long sequence;
+    private long lastId;
+    private boolean closed;
+
+    @Autowired
+    public EmbeddedUserStore(EmbeddedProperties properties) throws IOException {
+        this(properties, Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("user-snapshot").factory()));
+    }
+
+    /**
+     * Takes the snapshots a filling log asks for on {@code snapshotExecutor}.
+     */
+    EmbeddedUserStore(EmbeddedProperties properties, Executor snapshotExecutor) throws IOException {
+        this.snapshotExecutor = snapshotExecutor;
+        this.lockTimeoutNanos = properties.getLockTimeout().toNanos();
+        Files.createDirectories(properties.getDataDir());
+        this.snapshotFile = properties.getDataDir().resolve(SNAPSHOT_FILE);
+        this.table = new UserTable(properties.isOffHeap());
+        long snapshotSequence = readSnapshot();
+        this.userLog = UserLog.open(properties.getDataDir().resolve(LOG_FILE),
+                Math.toIntExact(properties.getLogSize().toBytes()), properties.isFsync());
+        if (userLog.base() > snapshotSequence) {
+            userLog.close();
+            throw new IllegalStateException("The user log in " + properties.getDataDir() + " starts after sequence "
+                    + userLog.base() + " but the snapshot only reaches " + snapshotSequence);
+        }
+        this.sequence = Math.max(snapshotSequence, userLog.replay(snapshotSequence, new UserLog.Visitor() {
+            @Override
+            public void put(long id, long version, String name, String surname, Integer age) {
+                table.put(id, version, name, surname, age);
+                lastId = Math.max(lastId, id);
+            }
+
+            @Override
+            public void delete(long id) {
+                table.remove(id);
+                lastId = Math.max(lastId, id);
+            }
+        }));
+        if (table.needsCompaction()) {
+            table.compact();
+        }
+        log.info("Loaded {} users from {} at sequence {}", table.size(), properties.getDataDir(), sequence);
+    }
+
+    User find(long id) {
+        User own = ownWrite(id);
+        if (own != UNWRITTEN) {
+            return own == null ? null : new User(id, own.getName(), own.getSurname(), own.getAge(), own.getVersion());
+        }
+        return committed(id);
+    }
+
+    UserResponse findResponse(long id) {
+        User own = ownWrite(id);
+        if (own != UNWRITTEN) {
+            return own == null ? null : new UserResponse(own.getName(), own.getSurname(), own.getAge(), own.getVersion());
+        }
+        lock.readLock().lock();
+        try {
+            int slot = table.slotOf(id);
+            return slot == LongIntHashMap.MISSING ? null
+                    : new UserResponse(table.name(slot), table.surname(slot), table.age(slot), table.version(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Long findVersion(long id) {
+        User own = ownWrite(id);
+        if (own != UNWRITTEN) {
+            return own == null ? null : own.getVersion();
+        }
+        lock.readLock().lock();
+        try {
+            int slot = table.slotOf(id);
+            return slot == LongIntHashMap.MISSING ? null : table.version(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long count() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} users with an id above {@code afterId}, in id order.
+     */
+    List<User> findAfter(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<User> users = new ArrayList<>(Math.min(limit, table.size()));
+            for (int slot = table.slotAfter(afterId); slot < table.slots() && users.size() < limit; slot++) {
+                if (table.isLive(slot)) {
+                    users.add(user(slot));
+                }
+            }
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<UserResponse> findAllResponses() {
+        lock.readLock().lock();
+        try {
+            List<UserResponse> users = new ArrayList<>(table.size());
+            for (int slot = 0; slot < table.slots(); slot++) {
+                if (table.isLive(slot)) {
+                    users.add(new UserResponse(table.name(slot), table.surname(slot), table.age(slot)));
+                }
+            }
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users matching every given filter, prefixes as UTF-8 bytes. Without an {@code order} the scan
+     * runs in id order and stops after {@code offset + limit} matches; with one every match is
+     * decoded and sorted.
+     */
+    List<User> search(byte[] namePrefix, byte[] surnamePrefix, Integer minAge, Integer maxAge,
+                      Comparator<User> order, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<User> matches = new ArrayList<>();
+            int skip = order == null ? offset : 0;
+            for (int slot = 0; slot < table.slots(); slot++) {
+                if (!table.isLive(slot)
+                        || namePrefix != null && !table.nameStartsWith(slot, namePrefix)
+                        || surnamePrefix != null && !table.surnameStartsWith(slot, surnamePrefix)
+                        || !inRange(table.age(slot), minAge, maxAge)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                matches.add(user(slot));
+                if (order == null && matches.size() == limit) {
+                    break;
+                }
+            }
+            if (order == null) {
+                return matches;
+            }
+            matches.sort(order);
+            return new ArrayList<>(matches.subList(Math.min(offset, matches.size()), Math.min(offset + limit, matches.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    User insert(String name, String surname, Integer age) {
+        long id;
+        lock.writeLock().lock();
+        try {
+            id = ++lastId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return inTransaction(transaction -> {
+            lockRow(transaction, id);
+            User user = new User(id, name, surname, age, 0L);
+            transaction.writes.put(id, user);
+            return user;
+        });
+    }
+
+    /**
+     * Overwrites row {@code id} and returns its new state, or {@code null} if the row is missing or
+     * its version is not {@code expectedVersion}, when one is given.
+     */
+    User update(long id, String name, String surname, Integer age, Long expectedVersion) {
+        return inTransaction(transaction -> {
+            User current = lockRow(transaction, id);
+            if (current == null || expectedVersion != null && current.getVersion() != expectedVersion.longValue()) {
+                return null;
+            }
+            User after = new User(id, name, surname, age, current.getVersion() + 1);
+            transaction.writes.put(id, after);
+            return after;
+        });
+    }
+
+    /**
+     * Removes row {@code id} and returns what it held, or {@code null} if there was no such row.
+     */
+    User delete(long id) {
+        return inTransaction(transaction -> {
+            User current = lockRow(transaction, id);
+            if (current != null) {
+                transaction.writes.put(id, null);
+            }
+            return current;
+        });
+    }
+
+    /**
+     * The sequence number of the last write, which only grows, across restarts too.
+     */
+    long sequence() {
+        lock.readLock().lock();
+        try {
+            return sequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the table to the snapshot file and, unless writes arrived meanwhile, empties the log.
+     * Writers wait only while the table's columns and arena are copied, a pause that grows with the
+     * table's size in memory; the file is encoded and forced to disk from the copy afterwards.
+     */
+    @Scheduled(fixedDelayString = "${app.embedded.snapshot-interval:PT5M}")
+    public synchronized void snapshot() {
+        long written;
+        long writtenLastId;
+        UserTable.Image image;
+        lock.readLock().lock();
+        try {
+            if (closed || userLog.isEmpty()) {
+                return;
+            }
+            image = table.image();
+            written = sequence;
+            writtenLastId = lastId;
+        } finally {
+            lock.readLock().unlock();
+        }
+        writeSnapshot(written, writtenLastId, image);
+        lock.writeLock().lock();
+        try {
+            if (sequence == written) {
+                userLog.reset(written);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Wrote user snapshot at sequence {}", written);
+    }
+
+    /**
+     * Synchronized with {@link #snapshot()}, so a snapshot still being written cannot replace the
+     * newer one written here.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (snapshotExecutor instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!userLog.isEmpty()) {
+                writeSnapshot(sequence, lastId, table.image());
+                userLog.reset(sequence);
+            }
+            userLog.close();
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} in the thread's Spring transaction, or in one of its own that commits
+     * straight after when there is none.
+     */
+    private <T> T inTransaction(Function<Transaction, T> work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Transaction transaction = (Transaction) TransactionSynchronizationManager.getResource(this);
+            if (transaction == null) {
+                transaction = new Transaction();
+                TransactionSynchronizationManager.bindResource(this, transaction);
+                TransactionSynchronizationManager.registerSynchronization(transaction);
+            }
+            return work.apply(transaction);
+        }
+        Transaction transaction = new Transaction();
+        try {
+            T result = work.apply(transaction);
+            commit(transaction);
+            return result;
+        } finally {
+            release(transaction);
+        }
+    }
+
+    /**
+     * The row as the thread's transaction last wrote it, {@code null} if it deleted it, or
+     * {@link #UNWRITTEN}.
+     */
+    private User ownWrite(long id) {
+        Transaction transaction = (Transaction) TransactionSynchronizationManager.getResource(this);
+        return transaction == null ? UNWRITTEN : transaction.writes.getOrDefault(id, UNWRITTEN);
+    }
+
+    /**
+     * Holds row {@code id} for {@code transaction} until it ends, once no other transaction does,
+     * and returns the row as the transaction sees it.
+     */
+    private User lockRow(Transaction transaction, long id) {
+        rowLock.lock();
+        try {
+            long remainingNanos = lockTimeoutNanos;
+            Transaction owner;
+            while ((owner = rowOwners.putIfAbsent(id, transaction)) != null && owner != transaction) {
+                if (remainingNanos <= 0) {
+                    throw new CannotAcquireLockException("Timed out waiting for another transaction writing user " + id);
+                }
+                remainingNanos = rowReleased.awaitNanos(remainingNanos);
+            }
+            if (owner == null) {
+                transaction.locked.add(id);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted waiting for another transaction writing user " + id, e);
+        } finally {
+            rowLock.unlock();
+        }
+        User own = transaction.writes.getOrDefault(id, UNWRITTEN);
+        return own != UNWRITTEN ? own : committed(id);
+    }
+
+    private void release(Transaction transaction) {
+        if (transaction.locked.isEmpty()) {
+            return;
+        }
+        rowLock.lock();
+        try {
+            for (Long id : transaction.locked) {
+                rowOwners.remove(id);
+            }
+            rowReleased.signalAll();
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    /**
+     * Logs the transaction's writes and then applies them to the table, in one hold of the write
+     * lock so that a snapshot never splits them. A transaction the log cannot take in full changes
+     * neither. The snapshot that empties the log runs off the writing thread; until it has, a full
+     * log fails commits.
+     */
+    private void commit(Transaction transaction) {
+        int writes = transaction.writes.size();
+        if (writes == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int logSize = userLog.size();
+            int appended = 0;
+            try {
+                for (Map.Entry<Long, User> write : transaction.writes.entrySet()) {
+                    if (!append(sequence + appended + 1, write.getKey(), write.getValue(), appended + 1 == writes)) {
+                        break;
+                    }
+                    appended++;
+                }
+            } finally {
+                if (appended < writes) {
+                    userLog.truncate(logSize);
+                }
+            }
+            if (appended < writes) {
+                snapshotSoon();
+                throw new TransientDataAccessResourceException("The user log is full until the next snapshot empties it");
+            }
+            sequence += writes;
+            for (Map.Entry<Long, User> write : transaction.writes.entrySet()) {
+                User after = write.getValue();
+                if (after == null) {
+                    table.remove(write.getKey());
+                } else {
+                    table.put(after.getId(), after.getVersion(), after.getName(), after.getSurname(), after.getAge());
+                }
+            }
+            if (table.needsCompaction()) {
+                table.compact();
+            }
+            if (userLog.size() > userLog.capacity() / 2) {
+                snapshotSoon();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void snapshotSoon() {
+        if (!snapshotQueued.compareAndSet(false, true)) {
+            return;
+        }
+        snapshotExecutor.execute(() -> {
+            snapshotQueued.set(false);
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                log.error("Could not write the user snapshot", e);
+            }
+        });
+    }
+
+    private boolean append(long next, long id, User after, boolean last) {
+        return after == null
+                ? userLog.appendDelete(next, id, last)
+                : userLog.appendPut(next, id, after.getVersion(), after.getName(), after.getSurname(), after.getAge(), last);
+    }
+
+    private User committed(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = table.slotOf(id);
+            return slot == LongIntHashMap.MISSING ? null : user(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private User user(int slot) {
+        return new User(table.id(slot), table.name(slot), table.surname(slot), table.age(slot), table.version(slot));
+    }
+
+    private static boolean inRange(Integer age, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return age != null && (min == null || age >= min) && (max == null || age <= max);
+    }
+
+    private long readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0L;
+        }
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile), IO_BUFFER), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+                throw new IllegalStateException(snapshotFile + " is not a user snapshot");
+            }
+            long snapshotSequence = in.readLong();
+            lastId = in.readLong();
+            table.readFrom(in, in.readInt());
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IllegalStateException(snapshotFile + " is corrupt");
+            }
+            return snapshotSequence;
+        }
+    }
+
+    /**
+     * Writes a temporary file and moves it over the snapshot, so a crash leaves the old one intact.
+     */
+    private void writeSnapshot(long sequence, long lastId, UserTable.Image image) {
+        Path temp = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                CRC32C crc = new CRC32C();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER), crc));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_FORMAT);
+                out.writeLong(sequence);
+                out.writeLong(lastId);
+                out.writeInt(image.size());
+                image.writeTo(out);
+                out.writeLong(crc.getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * A transaction's writes, the latest state of each row it wrote with {@code null} for a deletion,
+     * and the rows it holds.
+     */
+    private final class Transaction implements TransactionSynchronization {
+        private final Map<Long, User> writes = new LinkedHashMap<>();
+        private final List<Long> locked = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(EmbeddedUserStore.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(EmbeddedUserStore.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commit(this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EmbeddedUserStore.this);
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package az.ingress.mapstruct.embedded;
+
+/**
+ * Open-addressing map from non-zero {@code long} keys to {@code int} values in two parallel
+ * arrays, so lookups neither box the key nor chase entry objects. Linear probing with
+ * backward-shift deletion keeps probe chains short without tombstones. Not thread-safe.
+ */
+final class LongIntHashMap {
+    static final int MISSING = -1;
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The value of {@code key}, or {@link #MISSING}.
+     */
+    int get(long key) {
+        long[] keys = this.keys;
+        int i = slot(key);
+        for (long k; (k = keys[i]) != EMPTY; i = (i + 1) & mask) {
+            if (k == key) {
+                return values[i];
+            }
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key must not be 0");
+        }
+        int i = slot(key);
+        for (long k; (k = keys[i]) != EMPTY; i = (i + 1) & mask) {
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        // At most half full, so a miss ends after a couple of probes.
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Removes {@code key} and returns its value, or {@link #MISSING}.
+     */
+    int remove(long key) {
+        int i = slot(key);
+        for (long k; (k = keys[i]) != EMPTY; i = (i + 1) & mask) {
+            if (k == key) {
+                int value = values[i];
+                shiftBack(i);
+                size--;
+                return value;
+            }
+        }
+        return MISSING;
+    }
+
+    void clear(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+        size = 0;
+    }
+
+    /**
+     * Pulls later entries of the probe chain into the freed slot when their home slot allows it.
+     */
+    private void shiftBack(int hole) {
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int j = slot(key);
+                while (keys[j] != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = key;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+        return Math.max(capacity, MIN_CAPACITY);
+    }
+}
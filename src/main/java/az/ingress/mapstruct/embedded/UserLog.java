@@ -0,0 +1,266 @@
+package az.ingress.mapstruct.embedded;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of user writes in a memory-mapped file. A record is durable against the process
+ * dying as soon as it is copied into the mapping; with {@code force} it is also flushed to the
+ * device before {@link #appendPut} returns. Records carry consecutive sequence numbers and a
+ * checksum, so replay stops cleanly at a torn tail or at bytes left over from before the last
+ * {@link #reset(long)}. The last record of each transaction is marked, and replay drops the records
+ * of a transaction that has no marked record.
+ */
+final class UserLog implements AutoCloseable {
+    private static final int MAGIC = 0x55534C47;
+    private static final int FORMAT = 2;
+    private static final int HEADER = 16;
+    private static final int BASE_OFFSET = 8;
+    private static final int RECORD_HEADER = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte ENDS_TRANSACTION = (byte) 0x80;
+    private static final int NULL_TEXT = -1;
+
+    /**
+     * Receives replayed records in log order.
+     */
+    interface Visitor {
+
+        void put(long id, long version, String name, String surname, Integer age);
+
+        void delete(long id);
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean force;
+    private final CRC32C crc = new CRC32C();
+    private long base;
+    private int position;
+
+    private UserLog(FileChannel channel, MappedByteBuffer buffer, boolean force) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.force = force;
+    }
+
+    static UserLog open(Path file, int capacity, boolean force) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean created = channel.size() == 0;
+        UserLog log = new UserLog(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacity, channel.size())), force);
+        if (created) {
+            log.buffer.putInt(0, MAGIC);
+            log.buffer.putInt(4, FORMAT);
+            log.reset(0);
+        } else if (log.buffer.getInt(0) != MAGIC || log.buffer.getInt(4) != FORMAT) {
+            channel.close();
+            throw new IllegalStateException(file + " is not a user log");
+        }
+        log.base = log.buffer.getLong(BASE_OFFSET);
+        log.position = HEADER;
+        return log;
+    }
+
+    /**
+     * Sequence number the first record after the header follows.
+     */
+    long base() {
+        return base;
+    }
+
+    boolean isEmpty() {
+        return position == HEADER;
+    }
+
+    /**
+     * Bytes taken by the header and the records appended since the last {@link #reset(long)}.
+     */
+    int size() {
+        return position;
+    }
+
+    int capacity() {
+        return buffer.limit();
+    }
+
+    /**
+     * Hands every record of a complete transaction with a sequence number above {@code after} to
+     * {@code visitor} and returns the sequence number that transaction ends at. Appends continue after
+     * it, over the records of a transaction cut short.
+     */
+    long replay(long after, Visitor visitor) {
+        long last = base;
+        long lsn = base;
+        int committed = HEADER;
+        int offset = HEADER;
+        while (offset + RECORD_HEADER <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.limit() - offset - RECORD_HEADER
+                    || checksum(offset + RECORD_HEADER, length) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            int at = offset + RECORD_HEADER;
+            if (buffer.getLong(at + 1) != lsn + 1) {
+                break;
+            }
+            lsn++;
+            offset += RECORD_HEADER + length;
+            if ((buffer.get(at) & ENDS_TRANSACTION) != 0) {
+                visit(committed, offset, after, visitor);
+                committed = offset;
+                last = lsn;
+            }
+        }
+        truncate(committed);
+        return last;
+    }
+
+    /**
+     * Appends a write of row {@code id}, or returns {@code false} when the log has no room for it.
+     * {@code last} marks the final write of its transaction.
+     */
+    boolean appendPut(long lsn, long id, long version, String name, String surname, Integer age, boolean last) {
+        byte[] nameBytes = encode(name);
+        byte[] surnameBytes = encode(surname);
+        int length = 29 + textLength(nameBytes) + textLength(surnameBytes);
+        if (!hasRoom(length)) {
+            return false;
+        }
+        int at = position + RECORD_HEADER;
+        buffer.put(at, last ? (byte) (PUT | ENDS_TRANSACTION) : PUT);
+        buffer.putLong(at + 1, lsn);
+        buffer.putLong(at + 9, id);
+        buffer.putLong(at + 17, version);
+        buffer.putInt(at + 25, age == null ? Integer.MIN_VALUE : age);
+        putText(putText(at + 29, nameBytes), surnameBytes);
+        seal(length);
+        return true;
+    }
+
+    /**
+     * Appends a deletion of row {@code id}, or returns {@code false} when the log has no room for it.
+     * {@code last} marks the final write of its transaction.
+     */
+    boolean appendDelete(long lsn, long id, boolean last) {
+        int length = 17;
+        if (!hasRoom(length)) {
+            return false;
+        }
+        int at = position + RECORD_HEADER;
+        buffer.put(at, last ? (byte) (DELETE | ENDS_TRANSACTION) : DELETE);
+        buffer.putLong(at + 1, lsn);
+        buffer.putLong(at + 9, id);
+        seal(length);
+        return true;
+    }
+
+    /**
+     * Empties the log once a snapshot holds everything up to sequence number {@code base}.
+     */
+    void reset(long base) {
+        this.base = base;
+        buffer.putLong(BASE_OFFSET, base);
+        buffer.putInt(HEADER, 0);
+        position = HEADER;
+        if (force) {
+            buffer.force(0, HEADER + 4);
+        }
+    }
+
+    /**
+     * Drops the records from byte {@code size} on, as left by {@link #size()} before a transaction
+     * that could not be logged in full.
+     */
+    void truncate(int size) {
+        position = size;
+        if (position + Integer.BYTES <= buffer.limit()) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private boolean hasRoom(int length) {
+        if (RECORD_HEADER + length > buffer.limit() - HEADER) {
+            throw new IllegalStateException("A " + length + " byte record does not fit in the user log");
+        }
+        return RECORD_HEADER + length <= buffer.limit() - position;
+    }
+
+    /**
+     * Writes the record header last, so a record is only valid once its payload is complete.
+     */
+    private void seal(int length) {
+        int at = position + RECORD_HEADER;
+        buffer.putInt(position + 4, checksum(at, length));
+        buffer.putInt(position, length);
+        if (force) {
+            buffer.force(position, RECORD_HEADER + length);
+        }
+        position += RECORD_HEADER + length;
+    }
+
+    private void visit(int from, int to, long after, Visitor visitor) {
+        for (int offset = from; offset < to; offset += RECORD_HEADER + buffer.getInt(offset)) {
+            int at = offset + RECORD_HEADER;
+            if (buffer.getLong(at + 1) <= after) {
+                continue;
+            }
+            long id = buffer.getLong(at + 9);
+            if ((buffer.get(at) & ~ENDS_TRANSACTION) == PUT) {
+                long version = buffer.getLong(at + 17);
+                int age = buffer.getInt(at + 25);
+                int surnameAt = at + 29 + 4 + Math.max(buffer.getInt(at + 29), 0);
+                visitor.put(id, version, readText(at + 29), readText(surnameAt), age == Integer.MIN_VALUE ? null : age);
+            } else {
+                visitor.delete(id);
+            }
+        }
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private int putText(int offset, byte[] text) {
+        if (text == null) {
+            buffer.putInt(offset, NULL_TEXT);
+            return offset + 4;
+        }
+        buffer.putInt(offset, text.length);
+        buffer.put(offset + 4, text);
+        return offset + 4 + text.length;
+    }
+
+    private String readText(int offset) {
+        int length = buffer.getInt(offset);
+        if (length == NULL_TEXT) {
+            return null;
+        }
+        byte[] text = new byte[length];
+        buffer.get(offset + 4, text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    private static int textLength(byte[] text) {
+        return 4 + (text == null ? 0 : text.length);
+    }
+
+    private static byte[] encode(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,366 @@
+package az.ingress.mapstruct.embedded;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Users as parallel columns in id order, with name and surname UTF-8 encoded next to each other in
+ * one byte arena. With {@code offHeap} the arena is a direct buffer, which takes the strings out of
+ * the heap the collector has to trace. A row is found through a {@link LongIntHashMap} from id to
+ * slot. Deleted rows remain as tombstones and replaced strings as dead arena bytes until
+ * {@link #compact()} rewrites the live rows. Not thread-safe.
+ */
+final class UserTable {
+    private static final long TOMBSTONE = -1L;
+    private static final int NULL_AGE = Integer.MIN_VALUE;
+    private static final int NULL_TEXT = -1;
+    private static final int MIN_ROWS = 64;
+    private static final int MIN_ARENA = 4096;
+
+    private final boolean offHeap;
+    private final LongIntHashMap index;
+    private long[] ids;
+    private long[] versions;
+    private int[] ages;
+    private int[] texts;
+    private int rows;
+    private ByteBuffer arena;
+    private int arenaUsed;
+    private int arenaDead;
+
+    UserTable(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.index = new LongIntHashMap(MIN_ROWS);
+        allocate(MIN_ROWS, MIN_ARENA);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Slots in use, live rows and tombstones; slots are ordered by id.
+     */
+    int slots() {
+        return rows;
+    }
+
+    /**
+     * The slot of the live row {@code id}, or {@link LongIntHashMap#MISSING}.
+     */
+    int slotOf(long id) {
+        return index.get(id);
+    }
+
+    /**
+     * The first slot whose id is greater than {@code id}, or {@link #slots()}.
+     */
+    int slotAfter(long id) {
+        int found = Arrays.binarySearch(ids, 0, rows, id);
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    boolean isLive(int slot) {
+        return versions[slot] != TOMBSTONE;
+    }
+
+    long id(int slot) {
+        return ids[slot];
+    }
+
+    long version(int slot) {
+        return versions[slot];
+    }
+
+    Integer age(int slot) {
+        int age = ages[slot];
+        return age == NULL_AGE ? null : age;
+    }
+
+    String name(int slot) {
+        return decode(texts[slot]);
+    }
+
+    String surname(int slot) {
+        int offset = texts[slot];
+        return decode(offset + 4 + Math.max(arena.getInt(offset), 0));
+    }
+
+    boolean nameStartsWith(int slot, byte[] prefix) {
+        return startsWith(texts[slot], prefix);
+    }
+
+    boolean surnameStartsWith(int slot, byte[] prefix) {
+        int offset = texts[slot];
+        return startsWith(offset + 4 + Math.max(arena.getInt(offset), 0), prefix);
+    }
+
+    /**
+     * Inserts or overwrites row {@code id}. New ids above every stored one, the usual case, are
+     * appended; a lower id revives its tombstone or, failing that, shifts later slots up by one.
+     */
+    void put(long id, long version, String name, String surname, Integer age) {
+        int slot = index.get(id);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = rows == 0 || id > ids[rows - 1] ? rows : slotFor(id);
+            if (slot == rows || ids[slot] != id) {
+                insertSlot(slot);
+                ids[slot] = id;
+            }
+            index.put(id, slot);
+        } else {
+            arenaDead += textLength(texts[slot]);
+        }
+        versions[slot] = version;
+        ages[slot] = age == null ? NULL_AGE : age;
+        texts[slot] = appendText(encode(name), encode(surname));
+    }
+
+    boolean remove(long id) {
+        int slot = index.remove(id);
+        if (slot == LongIntHashMap.MISSING) {
+            return false;
+        }
+        versions[slot] = TOMBSTONE;
+        arenaDead += textLength(texts[slot]);
+        return true;
+    }
+
+    void clear() {
+        index.clear(MIN_ROWS);
+        allocate(MIN_ROWS, MIN_ARENA);
+        rows = 0;
+        arenaUsed = 0;
+        arenaDead = 0;
+    }
+
+    /**
+     * Whether tombstones or dead arena bytes have come to outweigh the live data.
+     */
+    boolean needsCompaction() {
+        return rows > MIN_ROWS && rows - size() > size()
+                || arenaUsed > MIN_ARENA && arenaDead > arenaUsed - arenaDead;
+    }
+
+    void compact() {
+        long[] oldIds = ids;
+        long[] oldVersions = versions;
+        int[] oldAges = ages;
+        int[] oldTexts = texts;
+        ByteBuffer oldArena = arena;
+        int oldRows = rows;
+        int live = size();
+        allocate(Math.max(live + (live >> 1), MIN_ROWS), Math.max(arenaUsed - arenaDead, MIN_ARENA));
+        index.clear(live);
+        rows = 0;
+        arenaUsed = 0;
+        arenaDead = 0;
+        for (int slot = 0; slot < oldRows; slot++) {
+            if (oldVersions[slot] != TOMBSTONE) {
+                int length = textLength(oldArena, oldTexts[slot]);
+                ensureArena(length);
+                arena.put(arenaUsed, oldArena, oldTexts[slot], length);
+                appendSlot(oldIds[slot], oldVersions[slot], oldAges[slot], arenaUsed);
+                arenaUsed += length;
+            }
+        }
+    }
+
+    /**
+     * A copy of the rows that stays as it is while the table changes, so they can be written out
+     * without holding up writers. Copying the columns and the used part of the arena is a few
+     * array copies, where writing them goes through the encoder and the disk.
+     */
+    Image image() {
+        byte[] text = new byte[arenaUsed];
+        arena.get(0, text);
+        return new Image(Arrays.copyOf(ids, rows), Arrays.copyOf(versions, rows), Arrays.copyOf(ages, rows),
+                Arrays.copyOf(texts, rows), ByteBuffer.wrap(text), size());
+    }
+
+    /**
+     * Rows copied by {@link #image()}.
+     */
+    record Image(long[] ids, long[] versions, int[] ages, int[] texts, ByteBuffer arena, int size) {
+
+        /**
+         * Writes the live rows in id order, strings as stored in the arena.
+         */
+        void writeTo(DataOutput out) throws IOException {
+            byte[] copy = new byte[256];
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (versions[slot] != TOMBSTONE) {
+                    int length = textLength(arena, texts[slot]);
+                    if (copy.length < length) {
+                        copy = new byte[Math.max(length, copy.length << 1)];
+                    }
+                    arena.get(texts[slot], copy, 0, length);
+                    out.writeLong(ids[slot]);
+                    out.writeLong(versions[slot]);
+                    out.writeInt(ages[slot]);
+                    out.write(copy, 0, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends {@code count} rows written by {@link Image#writeTo} after the rows already present, which
+     * must all have lower ids.
+     */
+    void readFrom(DataInput in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            long version = in.readLong();
+            int age = in.readInt();
+            byte[] name = readText(in);
+            byte[] surname = readText(in);
+            appendSlot(id, version, age, appendText(name, surname));
+        }
+    }
+
+    private void appendSlot(long id, long version, int age, int text) {
+        if (rows == ids.length) {
+            growSlots();
+        }
+        ids[rows] = id;
+        versions[rows] = version;
+        ages[rows] = age;
+        texts[rows] = text;
+        if (version != TOMBSTONE) {
+            index.put(id, rows);
+        }
+        rows++;
+    }
+
+    private int slotFor(long id) {
+        int found = Arrays.binarySearch(ids, 0, rows, id);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private void insertSlot(int slot) {
+        if (rows == ids.length) {
+            growSlots();
+        }
+        int moved = rows - slot;
+        System.arraycopy(ids, slot, ids, slot + 1, moved);
+        System.arraycopy(versions, slot, versions, slot + 1, moved);
+        System.arraycopy(ages, slot, ages, slot + 1, moved);
+        System.arraycopy(texts, slot, texts, slot + 1, moved);
+        rows++;
+        for (int i = slot + 1; i < rows; i++) {
+            if (versions[i] != TOMBSTONE) {
+                index.put(ids[i], i);
+            }
+        }
+    }
+
+    private void growSlots() {
+        int capacity = ids.length << 1;
+        ids = Arrays.copyOf(ids, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+    }
+
+    private int appendText(byte[] name, byte[] surname) {
+        int length = 8 + (name == null ? 0 : name.length) + (surname == null ? 0 : surname.length);
+        ensureArena(length);
+        int offset = arenaUsed;
+        int position = putText(offset, name);
+        putText(position, surname);
+        arenaUsed += length;
+        return offset;
+    }
+
+    private int putText(int offset, byte[] text) {
+        if (text == null) {
+            arena.putInt(offset, NULL_TEXT);
+            return offset + 4;
+        }
+        arena.putInt(offset, text.length);
+        arena.put(offset + 4, text);
+        return offset + 4 + text.length;
+    }
+
+    private void ensureArena(int length) {
+        if (arena.capacity() - arenaUsed >= length) {
+            return;
+        }
+        long wanted = Math.max((long) arena.capacity() << 1, (long) arenaUsed + length);
+        if (wanted > Integer.MAX_VALUE) {
+            throw new IllegalStateException("User text arena is full at " + arenaUsed + " bytes");
+        }
+        ByteBuffer grown = newArena((int) wanted);
+        grown.put(0, arena, 0, arenaUsed);
+        arena = grown;
+    }
+
+    private String decode(int offset) {
+        int length = arena.getInt(offset);
+        if (length == NULL_TEXT) {
+            return null;
+        }
+        if (arena.hasArray()) {
+            return new String(arena.array(), arena.arrayOffset() + offset + 4, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        arena.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * UTF-8 keeps code point boundaries, so a string prefix is a byte prefix of the encoding.
+     */
+    private boolean startsWith(int offset, byte[] prefix) {
+        int length = arena.getInt(offset);
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (arena.get(offset + 4 + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int textLength(int offset) {
+        return textLength(arena, offset);
+    }
+
+    private void allocate(int slots, int arenaBytes) {
+        ids = new long[slots];
+        versions = new long[slots];
+        ages = new int[slots];
+        texts = new int[slots];
+        arena = newArena(arenaBytes);
+    }
+
+    private ByteBuffer newArena(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static int textLength(ByteBuffer arena, int offset) {
+        int name = Math.max(arena.getInt(offset), 0);
+        return 8 + name + Math.max(arena.getInt(offset + 4 + name), 0);
+    }
+
+    private static byte[] encode(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readText(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_TEXT) {
+            return null;
+        }
+        byte[] text = new byte[length];
+        in.readFully(text);
+        return text;
+    }
+}
@@ -0,0 +1,69 @@
+package az.ingress.mapstruct.error;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JSON bodies of the frequent error responses, serialized once with the application's
+ * {@link ObjectMapper} and reused, so that they come out byte-identical to what Jackson would write
+ * for the same {@link ExceptionResponse}. The not-found body is spliced around the id.
+ */
+class ErrorBodies {
+    private static final String ID_PLACEHOLDER = Long.toString(Long.MIN_VALUE);
+    private static final int MAX_CACHED_TITLES = 256;
+
+    private final ObjectMapper objectMapper;
+    private final byte[] notFoundPrefix;
+    private final byte[] notFoundSuffix;
+    private final ConcurrentMap<HttpStatus, ConcurrentMap<String, byte[]>> constant = new ConcurrentHashMap<>();
+
+    ErrorBodies(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        byte[] template = serialize(HttpStatus.NOT_FOUND, new UserNotFound(Long.parseLong(ID_PLACEHOLDER)).getMessage());
+        String json = new String(template, StandardCharsets.UTF_8);
+        int split = json.indexOf(ID_PLACEHOLDER + "\"");
+        this.notFoundPrefix = Arrays.copyOfRange(template, 0, split);
+        this.notFoundSuffix = Arrays.copyOfRange(template, split + ID_PLACEHOLDER.length(), template.length);
+    }
+
+    byte[] userNotFound(long id) {
+        byte[] digits = Long.toString(id).getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(notFoundPrefix, notFoundPrefix.length + digits.length + notFoundSuffix.length);
+        System.arraycopy(digits, 0, body, notFoundPrefix.length, digits.length);
+        System.arraycopy(notFoundSuffix, 0, body, notFoundPrefix.length + digits.length, notFoundSuffix.length);
+        return body;
+    }
+
+    /**
+     * Body for a title from a small fixed set, such as one per endpoint. Past
+     * {@value #MAX_CACHED_TITLES} titles per status it serializes without caching.
+     */
+    byte[] constant(HttpStatus status, String title) {
+        ConcurrentMap<String, byte[]> bodies = constant.computeIfAbsent(status, s -> new ConcurrentHashMap<>());
+        byte[] body = bodies.get(title);
+        if (body == null) {
+            body = serialize(status, title);
+            if (bodies.size() < MAX_CACHED_TITLES) {
+                bodies.putIfAbsent(title, body);
+            }
+        }
+        return body;
+    }
+
+    private byte[] serialize(HttpStatus status, String title) {
+        try {
+            return objectMapper.writeValueAsBytes(ExceptionResponse.builder()
+                    .title(title)
+                    .status(status.getReasonPhrase())
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize error body", e);
+        }
+    }
+}
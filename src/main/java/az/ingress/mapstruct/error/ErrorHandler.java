@@ -1,8 +1,12 @@
 package az.ingress.mapstruct.error;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -13,28 +17,96 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ErrorHandler extends ResponseEntityExceptionHandler {
 
+    private final ErrorBodies errorBodies;
+
+    public ErrorHandler(ObjectMapper objectMapper) {
+        this.errorBodies = new ErrorBodies(objectMapper);
+    }
+
     @ExceptionHandler(value = UserNotFound.class)
-    @ResponseStatus(HttpStatus.NOT_FOUND)
-    public ExceptionResponse handle(UserNotFound userNotFound) {
+    public ResponseEntity<byte[]> handle(UserNotFound userNotFound) {
+        return json(HttpStatus.NOT_FOUND).body(errorBodies.userNotFound(userNotFound.getId()));
+    }
+
+    @ExceptionHandler(value = InvalidCursor.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ExceptionResponse handle(InvalidCursor invalidCursor) {
+        return ExceptionResponse.builder()
+                .title(invalidCursor.getMessage())
+                .status(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                .build();
+    }
+
+    @ExceptionHandler(value = InvalidSearchRequest.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ExceptionResponse handle(InvalidSearchRequest invalidSearchRequest) {
+        return ExceptionResponse.builder()
+                .title(invalidSearchRequest.getMessage())
+                .status(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                .build();
+    }
+
+    @ExceptionHandler(value = InvalidIdempotencyKey.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ExceptionResponse handle(InvalidIdempotencyKey invalidIdempotencyKey) {
         return ExceptionResponse.builder()
-                .title(userNotFound.getMessage())
-                .status(HttpStatus.NOT_FOUND.getReasonPhrase())
+                .title(invalidIdempotencyKey.getMessage())
+                .status(HttpStatus.BAD_REQUEST.getReasonPhrase())
                 .build();
     }
 
+    @ExceptionHandler(value = IdempotencyKeyReused.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ExceptionResponse handle(IdempotencyKeyReused idempotencyKeyReused) {
+        return ExceptionResponse.builder()
+                .title(idempotencyKeyReused.getMessage())
+                .status(HttpStatus.UNPROCESSABLE_ENTITY.getReasonPhrase())
+                .build();
+    }
+
+    @ExceptionHandler(value = UserVersionConflict.class)
+    public ResponseEntity<ExceptionResponse> handle(UserVersionConflict userVersionConflict) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (userVersionConflict.getCurrentVersion() != null) {
+            response.eTag(userVersionConflict.getCurrentVersion().toString());
+        }
+        return response.body(conflict(userVersionConflict.getMessage()));
+    }
+
+    @ExceptionHandler(value = RequestThrottled.class)
+    public ResponseEntity<byte[]> handle(RequestThrottled requestThrottled) {
+        return json(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(requestThrottled.getRetryAfterSeconds()))
+                .body(errorBodies.constant(HttpStatus.TOO_MANY_REQUESTS, requestThrottled.getMessage()));
+    }
+
+    @ExceptionHandler(value = ServiceOverloaded.class)
+    public ResponseEntity<byte[]> handle(ServiceOverloaded serviceOverloaded) {
+        return json(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorBodies.constant(HttpStatus.SERVICE_UNAVAILABLE, serviceOverloaded.getMessage()));
+    }
+
+    @ExceptionHandler(value = OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handle(OptimisticLockingFailureException optimisticLockingFailure) {
+        return json(HttpStatus.CONFLICT)
+                .body(errorBodies.constant(HttpStatus.CONFLICT, "User was modified concurrently"));
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers, HttpStatusCode status, WebRequest request) {
-        Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach(error -> {
-            String fieldName = ((FieldError) error).getField();
-            String errorMessage = error.getDefaultMessage();
-            errors.put(fieldName, errorMessage);
-        });
+        List<FieldError> fieldErrors = ex.getBindingResult().getFieldErrors();
+        Map<String, String> errors = HashMap.newHashMap(fieldErrors.size());
+        for (FieldError error : fieldErrors) {
+            errors.put(error.getField(), error.getDefaultMessage());
+        }
 
         ExceptionResponse exceptionResponse = ExceptionResponse.builder()
                 .title("VALIDATION_ERROR_OCCURRED")
@@ -44,4 +116,15 @@ public class ErrorHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exceptionResponse);
     }
 
+    private static ResponseEntity.BodyBuilder json(HttpStatus status) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private static ExceptionResponse conflict(String title) {
+        return ExceptionResponse.builder()
+                .title(title)
+                .status(HttpStatus.CONFLICT.getReasonPhrase())
+                .build();
+    }
+
 }
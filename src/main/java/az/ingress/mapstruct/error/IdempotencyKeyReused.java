@@ -0,0 +1,15 @@
+package az.ingress.mapstruct.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a retry sends a different request under a key already used. A misbehaving client
+ * can repeat it in a loop, so it skips the stack trace.
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyReused extends RuntimeException {
+    public IdempotencyKeyReused(String message) {
+        super(message, null, false, false);
+    }
+}
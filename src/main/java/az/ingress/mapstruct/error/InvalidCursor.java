@@ -0,0 +1,15 @@
+package az.ingress.mapstruct.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for a page cursor that does not decode. Clients control the cursor, so it is raised on
+ * their input alone and skips the stack trace.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursor extends RuntimeException {
+    public InvalidCursor(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,14 @@
+package az.ingress.mapstruct.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for an {@code Idempotency-Key} header of the wrong length, without a stack trace.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidIdempotencyKey extends RuntimeException {
+    public InvalidIdempotencyKey(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,15 @@
+package az.ingress.mapstruct.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown for search parameters outside what the endpoint accepts. It describes bad input rather
+ * than a bug, so it skips the stack trace.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchRequest extends RuntimeException {
+    public InvalidSearchRequest(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,70 @@
+package az.ingress.mapstruct.error;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveErrorHandler extends ResponseEntityExceptionHandler {
+
+    @ExceptionHandler(value = UserNotFound.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ExceptionResponse handle(UserNotFound userNotFound) {
+        return ExceptionResponse.builder()
+                .title(userNotFound.getMessage())
+                .status(HttpStatus.NOT_FOUND.getReasonPhrase())
+                .build();
+    }
+
+    @ExceptionHandler(value = InvalidCursor.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ExceptionResponse handle(InvalidCursor invalidCursor) {
+        return ExceptionResponse.builder()
+                .title(invalidCursor.getMessage())
+                .status(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                .build();
+    }
+
+    @ExceptionHandler(value = UserVersionConflict.class)
+    public ResponseEntity<ExceptionResponse> handle(UserVersionConflict userVersionConflict) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (userVersionConflict.getCurrentVersion() != null) {
+            response.eTag(userVersionConflict.getCurrentVersion().toString());
+        }
+        return response.body(ExceptionResponse.builder()
+                .title(userVersionConflict.getMessage())
+                .status(HttpStatus.CONFLICT.getReasonPhrase())
+                .build());
+    }
+
+    @Override
+    protected Mono<ResponseEntity<Object>> handleWebExchangeBindException(WebExchangeBindException ex, HttpHeaders headers, HttpStatusCode status, ServerWebExchange exchange) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach(error -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+
+        ExceptionResponse exceptionResponse = ExceptionResponse.builder()
+                .title("VALIDATION_ERROR_OCCURRED")
+                .validationErrors(errors)
+                .build();
+
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exceptionResponse));
+    }
+}
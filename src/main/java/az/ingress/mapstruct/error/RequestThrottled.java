@@ -0,0 +1,20 @@
+package az.ingress.mapstruct.error;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an endpoint's rate limit is exhausted. It is raised on every shed request, so it
+ * skips the stack trace.
+ */
+@Getter
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class RequestThrottled extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public RequestThrottled(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
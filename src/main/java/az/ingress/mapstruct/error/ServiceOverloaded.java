@@ -0,0 +1,15 @@
+package az.ingress.mapstruct.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an endpoint's concurrency limit is reached. It is raised on every shed request, so
+ * it skips the stack trace.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloaded extends RuntimeException {
+    public ServiceOverloaded(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,11 +1,25 @@
 package az.ingress.mapstruct.error;
 
+import lombok.Getter;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for every lookup of a missing id, which stale clients do in volume, so it skips the stack
+ * trace and only builds its message when asked.
+ */
+@Getter
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class UserNotFound extends RuntimeException {
-    public UserNotFound(String message) {
-        super(message);
+    private final long id;
+
+    public UserNotFound(long id) {
+        super(null, null, false, false);
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        return "User not found with id: " + id;
     }
 }
@@ -0,0 +1,20 @@
+package az.ingress.mapstruct.error;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an update names a version other than the current one. Concurrent writers hit it as a
+ * matter of course, so it skips the stack trace.
+ */
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserVersionConflict extends RuntimeException {
+    private final Long currentVersion;
+
+    public UserVersionConflict(String message, Long currentVersion) {
+        super(message, null, false, false);
+        this.currentVersion = currentVersion;
+    }
+}
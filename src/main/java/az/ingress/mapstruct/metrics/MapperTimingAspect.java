@@ -0,0 +1,45 @@
+package az.ingress.mapstruct.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each UserMapper method. Off by default: it puts a proxy in front of the mapper, whose
+ * methods take nanoseconds, and {@code user.service} already times the calls around them.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.metrics.mapper-timing.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MapperTimingAspect {
+    static final String METRIC_NAME = "user.mapper";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * az.ingress.mapstruct.mapper.UserMapper+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer timer = timers.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> Timer.builder(METRIC_NAME)
+                        .tag("method", method.getName())
+                        .register(meterRegistry));
+        long started = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
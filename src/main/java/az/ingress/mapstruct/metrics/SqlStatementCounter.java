@@ -0,0 +1,56 @@
+package az.ingress.mapstruct.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements a request sends. {@link SqlStatementMetricsFilter} binds one counter per
+ * request to the threads serving it, and {@link StatementCountingDataSource} reports each statement
+ * to the counter bound to the calling thread; statements on unbound threads are not counted.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    /**
+     * Makes this the counter of the calling thread until the returned scope closes.
+     */
+    public Scope bind() {
+        SqlStatementCounter previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous == null ? CURRENT::remove : () -> CURRENT.set(previous);
+    }
+
+    public int current() {
+        return statements.get();
+    }
+
+    static void increment() {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.statements.incrementAndGet();
+        }
+    }
+
+    /**
+     * Carries the submitting thread's counter into {@code task}, e.g. a streaming response body
+     * written on an executor thread.
+     */
+    public static Runnable propagate(Runnable task) {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = counter.bind()) {
+                task.run();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
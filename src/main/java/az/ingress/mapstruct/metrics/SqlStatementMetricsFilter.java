@@ -0,0 +1,67 @@
+package az.ingress.mapstruct.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the statements each request sent as {@value #METRIC_NAME}. An asynchronous request, such
+ * as a streaming body, keeps its counter across the async dispatch and is recorded once it completes.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    public static final String METRIC_NAME = "http.server.requests.sql.statements";
+    private static final String COUNTER_ATTRIBUTE = SqlStatementMetricsFilter.class.getName() + ".counter";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Route, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter counter = (SqlStatementCounter) request.getAttribute(COUNTER_ATTRIBUTE);
+        if (counter == null) {
+            counter = new SqlStatementCounter();
+            request.setAttribute(COUNTER_ATTRIBUTE, counter);
+        }
+        try (SqlStatementCounter.Scope ignored = counter.bind()) {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                summary(new Route(request.getMethod(), pattern == null ? "UNKNOWN" : pattern.toString()))
+                        .record(counter.current());
+            }
+        }
+    }
+
+    private DistributionSummary summary(Route route) {
+        return summaries.computeIfAbsent(route, key -> DistributionSummary.builder(METRIC_NAME)
+                .baseUnit("statements")
+                .tag("method", key.method())
+                .tag("uri", key.uri())
+                .register(meterRegistry));
+    }
+
+    private record Route(String method, String uri) {
+    }
+}
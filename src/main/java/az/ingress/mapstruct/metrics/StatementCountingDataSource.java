@@ -0,0 +1,73 @@
+package az.ingress.mapstruct.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Hands out connections that report each statement sent through them to {@link SqlStatementCounter},
+ * so statements from JdbcTemplate count as well as Hibernate's. A prepared statement counts once
+ * however many rows it batches, a plain statement once per execution.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> PLAIN_EXECUTIONS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+    public StatementCountingDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return proxy(Connection.class, connection, (method, result) -> {
+            switch (method.getName()) {
+                case "prepareStatement", "prepareCall" -> SqlStatementCounter.increment();
+                case "createStatement" -> {
+                    return proxy(Statement.class, (Statement) result, (executed, returned) -> {
+                        if (PLAIN_EXECUTIONS.contains(executed.getName())) {
+                            SqlStatementCounter.increment();
+                        }
+                        return returned;
+                    });
+                }
+                default -> {
+                }
+            }
+            return result;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, BiFunction<Method, Object, Object> afterCall) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return afterCall.apply(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }));
+    }
+}
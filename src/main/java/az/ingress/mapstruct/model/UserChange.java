@@ -0,0 +1,38 @@
+package az.ingress.mapstruct.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+/**
+ * Outbox row for one user mutation, written in the transaction of the mutation itself.
+ * {@code feedPosition} and {@code publishedAt} are set by the relay once the change is published.
+ */
+@Data
+@Entity
+@Table(name = "user_changes")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_changes_seq")
+    @SequenceGenerator(name = "user_changes_seq", sequenceName = "user_changes_seq", allocationSize = 50)
+    Long id;
+    Long userId;
+
+    @Enumerated(EnumType.STRING)
+    UserChangeType type;
+
+    String name;
+    String surname;
+    Integer age;
+    Long version;
+    Instant changedAt;
+    Long feedPosition;
+    Instant publishedAt;
+}
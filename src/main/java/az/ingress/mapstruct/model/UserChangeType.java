@@ -0,0 +1,7 @@
+package az.ingress.mapstruct.model;
+
+public enum UserChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,86 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.service.IdempotencyRecord;
+import az.ingress.mapstruct.service.IdempotencyStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Keys shared by all instances through the {@code idempotency_keys} table. The primary key makes a
+ * concurrent insert of the same key on another instance wait for this transaction, then fail.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "jdbc")
+@Slf4j
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${app.idempotency.ttl:24h}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        return jdbcTemplate.query("select fingerprint, name, surname, age, version from idempotency_keys "
+                        + "where idempotency_key = ? and created_at > ?",
+                (rs, rowNum) -> new IdempotencyRecord(rs.getString("fingerprint"), new UserResponse(
+                        rs.getString("name"), rs.getString("surname"),
+                        rs.getObject("age", Integer.class), rs.getObject("version", Long.class))),
+                key, expiredBefore()).stream().findFirst();
+    }
+
+    @Override
+    public void save(String key, IdempotencyRecord record) {
+        UserResponse response = record.getResponse();
+        Instant now = Instant.now();
+        // Takes over a key whose previous use has expired but not been purged yet.
+        int stored = jdbcTemplate.update("insert into idempotency_keys "
+                        + "(idempotency_key, fingerprint, name, surname, age, version, created_at) "
+                        + "values (?, ?, ?, ?, ?, ?, ?) "
+                        + "on conflict (idempotency_key) do update set fingerprint = excluded.fingerprint, "
+                        + "name = excluded.name, surname = excluded.surname, age = excluded.age, "
+                        + "version = excluded.version, created_at = excluded.created_at "
+                        + "where idempotency_keys.created_at <= ?",
+                key, record.getFingerprint(), response.getName(), response.getSurname(), response.getAge(),
+                response.getVersion(), Timestamp.from(now), Timestamp.from(now.minus(ttl)));
+        if (stored == 0) {
+            throw new DuplicateKeyException("Idempotency key already stored: " + key);
+        }
+    }
+
+    /**
+     * Runs in its own transaction: with auto-commit off, as in the perf profile, a bare delete would
+     * be rolled back when the connection goes back to the pool.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status ->
+                jdbcTemplate.update("delete from idempotency_keys where created_at <= ?", expiredBefore()));
+        if (purged != null && purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Timestamp expiredBefore() {
+        return Timestamp.from(Instant.now().minus(ttl));
+    }
+}
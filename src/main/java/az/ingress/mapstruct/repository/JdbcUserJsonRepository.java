@@ -0,0 +1,44 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.dto.response.UserJsonWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Streams {@code users} rows into a {@link JsonGenerator} for the list endpoints, bypassing
+ * Hibernate. Call it inside a transaction: PostgreSQL only honours the fetch size with autocommit
+ * off, and otherwise buffers the whole table.
+ */
+@Repository
+@Profile("!reactive & !embedded")
+public class JdbcUserJsonRepository implements UserJsonRepository {
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcUserJsonRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    public void writeAll(JsonGenerator generator) {
+        jdbcTemplate.query("select name, surname, age from users order by id", (RowCallbackHandler) rs -> {
+            String name = rs.getString(1);
+            String surname = rs.getString(2);
+            int age = rs.getInt(3);
+            try {
+                UserJsonWriter.write(generator, name, surname, rs.wasNull() ? null : age);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.model.UserChange;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Inserts outbox rows into {@code user_changes} for the reactive write path. Ids come from
+ * {@code user_changes_seq} one value at a time; Hibernate treats each value as the top of a block of
+ * 50, so the two never hand out the same id when instances of both kinds share the database.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserChangeRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserChangeRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    public Mono<Void> save(UserChange change) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("insert into user_changes "
+                        + "(id, user_id, type, name, surname, age, version, changed_at) values "
+                        + "(nextval('user_changes_seq'), :userId, :type, :name, :surname, :age, :version, :changedAt)")
+                .bind("userId", change.getUserId())
+                .bind("type", change.getType().name())
+                .bind("changedAt", change.getChangedAt());
+        insert = bindNullable(insert, "name", change.getName(), String.class);
+        insert = bindNullable(insert, "surname", change.getSurname(), String.class);
+        insert = bindNullable(insert, "age", change.getAge(), Integer.class);
+        insert = bindNullable(insert, "version", change.getVersion(), Long.class);
+        return insert.then();
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                       String name, T value, Class<T> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
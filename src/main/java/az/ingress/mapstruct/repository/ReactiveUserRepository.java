@@ -0,0 +1,101 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.model.User;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+    private static final String COLUMNS = "id, name, surname, age, version";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    public Mono<User> save(User user) {
+        return databaseClient.sql("insert into users (" + COLUMNS + ") values (nextval('users_seq'), :name, :surname, :age, 0) "
+                        + "returning " + COLUMNS)
+                .bind("name", user.getName())
+                .bind("surname", user.getSurname())
+                .bind("age", user.getAge())
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<User> findById(Long id) {
+        return databaseClient.sql("select " + COLUMNS + " from users where id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<Long> findVersionById(Long id) {
+        return databaseClient.sql("select version from users where id = :id")
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    public Flux<User> findAll() {
+        return databaseClient.sql("select " + COLUMNS + " from users order by id")
+                .filter(statement -> statement.fetchSize(500))
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    public Flux<User> findByIdGreaterThan(long id, int limit) {
+        return databaseClient.sql("select " + COLUMNS + " from users where id > :id order by id limit :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveUserRepository::toUser)
+                .all();
+    }
+
+    public Mono<User> update(Long id, String name, String surname, Integer age) {
+        return databaseClient.sql("update users set name = :name, surname = :surname, age = :age, version = version + 1 where id = :id "
+                        + "returning " + COLUMNS)
+                .bind("id", id)
+                .bind("name", name)
+                .bind("surname", surname)
+                .bind("age", age)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<User> updateIfVersion(Long id, String name, String surname, Integer age, Long version) {
+        return databaseClient.sql("update users set name = :name, surname = :surname, age = :age, version = version + 1 "
+                        + "where id = :id and version = :version returning " + COLUMNS)
+                .bind("id", id)
+                .bind("name", name)
+                .bind("surname", surname)
+                .bind("age", age)
+                .bind("version", version)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("delete from users where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static User toUser(Readable row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .surname(row.get("surname", String.class))
+                .age(row.get("age", Integer.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.model.UserChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Only the operations the application uses, like {@link UserRepository}.
+ */
+public interface UserChangeRepository extends Repository<UserChange, Long> {
+
+    <S extends UserChange> S save(S change);
+
+    @Query("select new az.ingress.mapstruct.dto.response.UserChangeResponse(c.feedPosition, c.userId, c.type, "
+            + "c.name, c.surname, c.age, c.version, c.changedAt) "
+            + "from UserChange c where c.feedPosition > :since order by c.feedPosition")
+    List<UserChangeResponse> findPublishedAfter(long since, Pageable pageable);
+
+    /**
+     * The highest feed position handed out so far, 0 before the first. Shared by every instance, it
+     * moves whenever any of them publishes a committed change.
+     */
+    @Query("select coalesce(max(c.feedPosition), 0) from UserChange c")
+    long findLastPosition();
+}
@@ -0,0 +1,11 @@
+package az.ingress.mapstruct.repository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public interface UserJsonRepository {
+
+    /**
+     * Writes every user, in id order, as a root or array value of {@code generator}.
+     */
+    void writeAll(JsonGenerator generator);
+}
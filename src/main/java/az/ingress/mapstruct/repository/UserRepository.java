@@ -1,7 +1,69 @@
 package az.ingress.mapstruct.repository;
 
+import az.ingress.mapstruct.dto.projection.UserView;
+import az.ingress.mapstruct.dto.response.UserResponse;
 import az.ingress.mapstruct.model.User;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Only the operations the application uses, so that every implementation, JPA or embedded,
+ * provides all of them. The CRUD methods are served by Spring Data's {@code SimpleJpaRepository}.
+ */
+public interface UserRepository extends Repository<User, Long>, UserSearchRepository {
+
+    <S extends User> S save(S user);
+
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    Optional<User> findById(Long id);
+
+    List<User> findAll();
+
+    List<User> findAllById(Iterable<Long> ids);
+
+    void flush();
+
+    void deleteAllInBatch();
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select new az.ingress.mapstruct.dto.response.UserResponse(u.name, u.surname, u.age, u.version) "
+            + "from User u where u.id = :id")
+    Optional<UserResponse> findResponseById(Long id);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select new az.ingress.mapstruct.dto.response.UserResponse(u.name, u.surname, u.age) from User u")
+    List<UserResponse> findAllResponses();
+
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(Long id);
+
+    /**
+     * The ids this statement deleted, leaving out those already gone.
+     */
+    @Transactional
+    @Query(value = "delete from users where id in :ids returning id", nativeQuery = true)
+    List<Long> deleteUsersById(Collection<Long> ids);
+
+    @Transactional
+    @Query(value = "update users set name = :name, surname = :surname, age = :age, version = version + 1 "
+            + "where id = :id returning name, surname, age, version", nativeQuery = true)
+    Optional<UserView> updateUser(Long id, String name, String surname, Integer age);
+
+    @Transactional
+    @Query(value = "update users set name = :name, surname = :surname, age = :age, version = version + 1 "
+            + "where id = :id and version = :version returning name, surname, age, version", nativeQuery = true)
+    Optional<UserView> updateUserIfVersion(Long id, String name, String surname, Integer age, Long version);
 }
@@ -0,0 +1,15 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface UserSearchRepository {
+
+    /**
+     * Filters are optional and only the ones given end up in the where clause, so each
+     * combination gets its own plan. Name and surname match as case-sensitive prefixes.
+     * No count query is issued; {@link Slice#hasNext()} comes from fetching one extra row.
+     */
+    Slice<User> search(String namePrefix, String surnamePrefix, Integer minAge, Integer maxAge, Pageable pageable);
+}
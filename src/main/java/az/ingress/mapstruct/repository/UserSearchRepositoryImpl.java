@@ -0,0 +1,73 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@RequiredArgsConstructor
+class UserSearchRepositoryImpl implements UserSearchRepository {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<User> search(String namePrefix, String surnamePrefix, Integer minAge, Integer maxAge, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<User> query = cb.createQuery(User.class);
+        Root<User> user = query.from(User.class);
+
+        List<Predicate> predicates = new ArrayList<>(4);
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            predicates.add(cb.like(user.get("name"), likePrefix(namePrefix), LIKE_ESCAPE));
+        }
+        if (surnamePrefix != null && !surnamePrefix.isEmpty()) {
+            predicates.add(cb.like(user.get("surname"), likePrefix(surnamePrefix), LIKE_ESCAPE));
+        }
+        if (minAge != null) {
+            predicates.add(cb.greaterThanOrEqualTo(user.get("age"), minAge));
+        }
+        if (maxAge != null) {
+            predicates.add(cb.lessThanOrEqualTo(user.get("age"), maxAge));
+        }
+
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), user, cb));
+        if (pageable.getSort().getOrderFor("id") == null) {
+            orders.add(cb.asc(user.get("id")));
+        }
+        query.select(user).where(predicates.toArray(Predicate[]::new)).orderBy(orders);
+
+        List<User> users = entityManager.createQuery(query)
+                .setHint(HINT_READ_ONLY, true)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = users.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+    }
+
+    private static String likePrefix(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 2);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
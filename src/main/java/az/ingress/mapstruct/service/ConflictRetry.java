@@ -0,0 +1,74 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.error.UserVersionConflict;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry for internal read-modify-write callers that lose an optimistic locking race.
+ * Backoff is exponential with full jitter, so contending writers spread out instead of
+ * colliding again on the same schedule. HTTP clients get the 409 instead and retry themselves.
+ */
+@Component
+@Slf4j
+public class ConflictRetry {
+
+    private static final int MAX_SHIFT = 30;
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+
+    public ConflictRetry(@Value("${app.retry.conflict.max-attempts:5}") int maxAttempts,
+                         @Value("${app.retry.conflict.base-delay:10ms}") Duration baseDelay,
+                         @Value("${app.retry.conflict.max-delay:200ms}") Duration maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("max-attempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = Math.max(maxDelay.toNanos(), baseDelayNanos);
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (!isConflict(e) || attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Version conflict on attempt {} of {}, retrying", attempt, maxAttempts);
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    long delayNanos(int attempt) {
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << Math.min(attempt - 1, MAX_SHIFT));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    static boolean isConflict(Throwable e) {
+        return e instanceof UserVersionConflict
+                || e instanceof OptimisticLockingFailureException
+                || e instanceof OptimisticLockException;
+    }
+
+    private void backOff(int attempt, RuntimeException conflict) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
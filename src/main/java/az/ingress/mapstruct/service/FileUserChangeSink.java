@@ -0,0 +1,46 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends changes as newline-delimited JSON to a local file, for inspecting the stream locally.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+public class FileUserChangeSink implements UserChangeSink {
+
+    private final ObjectWriter writer;
+    private final Path file;
+
+    public FileUserChangeSink(ObjectMapper objectMapper, @Value("${app.outbox.file:user-changes.ndjson}") Path file) {
+        this.writer = objectMapper.writerFor(UserChangeResponse.class);
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<UserChangeResponse> changes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(changes.size() * 128);
+        try {
+            for (UserChangeResponse change : changes) {
+                writer.writeValue(out, change);
+                out.write('\n');
+            }
+            Files.write(file, out.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append user changes to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Response replayed for an idempotency key, with a fingerprint of the request that produced it.
+ */
+@Getter
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotencyRecord {
+    String fingerprint;
+    UserResponse response;
+}
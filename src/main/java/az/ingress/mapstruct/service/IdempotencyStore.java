@@ -0,0 +1,17 @@
+package az.ingress.mapstruct.service;
+
+import java.util.Optional;
+
+/**
+ * Remembers the outcome of {@code POST /user} per {@code Idempotency-Key} until the key expires.
+ */
+public interface IdempotencyStore {
+
+    Optional<IdempotencyRecord> find(String key);
+
+    /**
+     * Stores the record for a key that has none yet, in the transaction that created the user.
+     * Throws {@link org.springframework.dao.DuplicateKeyException} when the key is already taken.
+     */
+    void save(String key, IdempotencyRecord record);
+}
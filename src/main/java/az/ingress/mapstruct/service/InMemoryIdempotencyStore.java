@@ -0,0 +1,54 @@
+package az.ingress.mapstruct.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Keys of this instance only, bounded in count and evicted after the TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, IdempotencyRecord> records;
+
+    public InMemoryIdempotencyStore(@Value("${app.idempotency.max-keys:10000}") long maxKeys,
+                                    @Value("${app.idempotency.ttl:24h}") Duration ttl) {
+        this.records = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> find(String key) {
+        return Optional.ofNullable(records.getIfPresent(key));
+    }
+
+    @Override
+    public void save(String key, IdempotencyRecord record) {
+        if (records.getIfPresent(key) != null) {
+            throw new DuplicateKeyException("Idempotency key already stored: " + key);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Only remember the key once the user row is committed.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    records.put(key, record);
+                }
+            });
+        } else {
+            records.put(key, record);
+        }
+    }
+}
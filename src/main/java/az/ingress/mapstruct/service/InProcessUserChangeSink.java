@@ -0,0 +1,26 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes every change as an application event, for {@code @EventListener(UserChangeResponse.class)}
+ * consumers in the same JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+@RequiredArgsConstructor
+public class InProcessUserChangeSink implements UserChangeSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<UserChangeResponse> changes) {
+        changes.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,122 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.model.UserChange;
+import az.ingress.mapstruct.model.UserChangeType;
+import az.ingress.mapstruct.repository.ReactiveUserChangeRepository;
+import az.ingress.mapstruct.repository.ReactiveUserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * The write contract of {@link UserService} on R2DBC: versioned rows, conditional updates that fail
+ * with {@link UserVersionConflict}, and an outbox row in the transaction of every mutation. The
+ * outbox is published by the relay of a servlet instance on the same database; this profile runs
+ * no relay and serves no change feed. {@code /user/all} streams straight from the database, so
+ * there is no list snapshot to invalidate and no cache to update.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveUserChangeRepository userChangeRepository;
+    private final UserMapper userMapper;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveUserService(ReactiveUserRepository userRepository, ReactiveUserChangeRepository userChangeRepository,
+                               UserMapper userMapper, ReactiveTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.userChangeRepository = userChangeRepository;
+        this.userMapper = userMapper;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    public Mono<UserResponse> create(UserRequest request) {
+        return userRepository.save(userMapper.mapUserRequestToUserEntity(request))
+                .flatMap(user -> appendChange(user.getId(), UserChangeType.CREATED, user).thenReturn(user))
+                .map(userMapper::mapEntityToUserResponse)
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<UserResponse> getById(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFound(id)))
+                .map(userMapper::mapEntityToUserResponse);
+    }
+
+    public Flux<UserResponse> getAllUsers() {
+        return userRepository.findAll()
+                .map(userMapper::mapEntityToUserResponse);
+    }
+
+    public Mono<UserPageResponse> getUsersPage(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return Mono.fromCallable(() -> cursor == null || cursor.isEmpty() ? 0L : UserCursor.decode(cursor))
+                .flatMap(afterId -> userRepository.findByIdGreaterThan(afterId, pageSize + 1).collectList())
+                .map(users -> {
+                    boolean hasNext = users.size() > pageSize;
+                    var page = hasNext ? users.subList(0, pageSize) : users;
+                    return UserPageResponse.builder()
+                            .users(userMapper.mapEntityListToUserResponseList(page))
+                            .nextCursor(hasNext ? UserCursor.encode(page.get(pageSize - 1).getId()) : null)
+                            .build();
+                });
+    }
+
+    public Mono<Void> deleteUserById(Long id) {
+        return userRepository.deleteById(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.<Void>error(new UserNotFound(id))
+                        : appendChange(id, UserChangeType.DELETED, null))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Overwrites the user. With a non-null {@code expectedVersion} the write only applies if
+     * nobody has updated the row since that version was read, otherwise {@link UserVersionConflict}.
+     */
+    public Mono<UserResponse> updateUser(Long id, UserRequest request, Long expectedVersion) {
+        Mono<User> update = expectedVersion == null
+                ? userRepository.update(id, request.getName(), request.getSurname(), request.getAge())
+                : userRepository.updateIfVersion(id, request.getName(), request.getSurname(), request.getAge(), expectedVersion);
+        return update
+                .switchIfEmpty(Mono.defer(() -> notFoundOrConflict(id)))
+                .flatMap(user -> appendChange(id, UserChangeType.UPDATED, user).thenReturn(user))
+                .map(userMapper::mapEntityToUserResponse)
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<User> notFoundOrConflict(Long id) {
+        return userRepository.findVersionById(id)
+                .<User>flatMap(version -> Mono.error(new UserVersionConflict("User with id: " + id + " was modified concurrently", version)))
+                .switchIfEmpty(Mono.error(() -> new UserNotFound(id)));
+    }
+
+    private Mono<Void> appendChange(Long userId, UserChangeType type, User user) {
+        UserChange.UserChangeBuilder change = UserChange.builder()
+                .userId(userId)
+                .type(type)
+                .changedAt(Instant.now());
+        if (user != null) {
+            change.name(user.getName())
+                    .surname(user.getSurname())
+                    .age(user.getAge())
+                    .version(user.getVersion());
+        }
+        return userChangeRepository.save(change.build());
+    }
+}
@@ -0,0 +1,308 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.config.CacheConfig;
+import az.ingress.mapstruct.dto.request.UserBatchUpdateRequest;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.BatchItemError;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.BatchItemStatus;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Timed("user.service")
+@Profile("!reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class UserBatchService {
+    static final int CHUNK_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final CacheManager cacheManager;
+    private final UserListSnapshotService userListSnapshotService;
+    private final ConflictRetry conflictRetry;
+    private final UserChangeOutbox userChangeOutbox;
+
+    public List<BatchItemResponse> createAll(List<UserRequest> requests) {
+        long started = System.nanoTime();
+        BatchItemResponse[] results = new BatchItemResponse[requests.size()];
+        List<Integer> indexes = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < requests.size(); i++) {
+            UserRequest request = requests.get(i);
+            Map<String, String> errors = validate(request);
+            if (errors != null) {
+                results[i] = invalid(i, null, errors);
+                continue;
+            }
+            indexes.add(i);
+            if (indexes.size() == CHUNK_SIZE) {
+                createChunk(requests, indexes, results);
+                indexes.clear();
+            }
+        }
+        if (!indexes.isEmpty()) {
+            createChunk(requests, indexes, results);
+        }
+        userListSnapshotService.invalidate();
+        logThroughput("create", requests.size(), started);
+        return Arrays.asList(results);
+    }
+
+    public List<BatchItemResponse> updateAll(List<UserBatchUpdateRequest> requests) {
+        long started = System.nanoTime();
+        BatchItemResponse[] results = new BatchItemResponse[requests.size()];
+        List<Integer> indexes = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < requests.size(); i++) {
+            UserBatchUpdateRequest request = requests.get(i);
+            Map<String, String> errors = validate(request);
+            if (errors != null) {
+                results[i] = invalid(i, request == null ? null : request.getId(), errors);
+                continue;
+            }
+            indexes.add(i);
+            if (indexes.size() == CHUNK_SIZE) {
+                updateChunk(requests, indexes, results);
+                indexes.clear();
+            }
+        }
+        if (!indexes.isEmpty()) {
+            updateChunk(requests, indexes, results);
+        }
+        userListSnapshotService.invalidate();
+        logThroughput("update", requests.size(), started);
+        return Arrays.asList(results);
+    }
+
+    public List<BatchItemResponse> deleteAll(List<Long> ids) {
+        long started = System.nanoTime();
+        BatchItemResponse[] results = new BatchItemResponse[ids.size()];
+        List<Integer> indexes = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                results[i] = invalid(i, null, Map.of("id", "must not be null"));
+                continue;
+            }
+            indexes.add(i);
+            if (indexes.size() == CHUNK_SIZE) {
+                deleteChunk(ids, indexes, results);
+                indexes.clear();
+            }
+        }
+        if (!indexes.isEmpty()) {
+            deleteChunk(ids, indexes, results);
+        }
+        userListSnapshotService.invalidate();
+        logThroughput("delete", ids.size(), started);
+        return Arrays.asList(results);
+    }
+
+    private void createChunk(List<UserRequest> requests, List<Integer> indexes, BatchItemResponse[] results) {
+        List<User> users = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            users.add(userMapper.mapUserRequestToUserEntity(requests.get(index)));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(users);
+                for (User user : users) {
+                    userChangeOutbox.created(user.getId(), userMapper.mapEntityToUserResponse(user));
+                }
+                userRepository.flush();
+            });
+        } catch (DataAccessException e) {
+            failChunk(indexes, results, e, half -> createChunk(requests, half, results));
+            return;
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            User user = users.get(i);
+            results[indexes.get(i)] = BatchItemResponse.builder()
+                    .index(indexes.get(i))
+                    .id(user.getId())
+                    .status(BatchItemStatus.CREATED)
+                    .user(userMapper.mapEntityToUserResponse(user))
+                    .build();
+        }
+    }
+
+    private void updateChunk(List<UserBatchUpdateRequest> requests, List<Integer> indexes, BatchItemResponse[] results) {
+        Set<Long> ids = new HashSet<>(indexes.size() * 2);
+        for (Integer index : indexes) {
+            ids.add(requests.get(index).getId());
+        }
+        try {
+            conflictRetry.execute(() -> transactionTemplate.execute(status -> {
+                List<User> updated = new ArrayList<>(indexes.size());
+                Map<Long, User> existing = userRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()));
+                for (Integer index : indexes) {
+                    UserBatchUpdateRequest request = requests.get(index);
+                    User user = existing.get(request.getId());
+                    if (user == null) {
+                        results[index] = notFound(index, request.getId());
+                        continue;
+                    }
+                    user.setName(request.getName());
+                    user.setSurname(request.getSurname());
+                    user.setAge(request.getAge());
+                    updated.add(user);
+                    results[index] = BatchItemResponse.builder()
+                            .index(index)
+                            .id(user.getId())
+                            .status(BatchItemStatus.UPDATED)
+                            .user(userMapper.mapEntityToUserResponse(user))
+                            .build();
+                }
+                userRepository.saveAll(updated);
+                userRepository.flush();
+                // After the flush, so the events carry the incremented versions.
+                for (User user : updated) {
+                    userChangeOutbox.updated(user.getId(), userMapper.mapEntityToUserResponse(user));
+                }
+                userRepository.flush();
+                return null;
+            }));
+        } catch (DataAccessException | OptimisticLockException e) {
+            failChunk(indexes, results, e, half -> updateChunk(requests, half, results));
+        }
+        evict(ids);
+    }
+
+    private void deleteChunk(List<Long> ids, List<Integer> indexes, BatchItemResponse[] results) {
+        Set<Long> requested = new HashSet<>(indexes.size() * 2);
+        for (Integer index : indexes) {
+            requested.add(ids.get(index));
+        }
+        try {
+            Set<Long> deleted = transactionTemplate.execute(status -> {
+                // The delete's own result, so rows a concurrent request removed are reported as not found.
+                List<Long> removed = userRepository.deleteUsersById(requested);
+                removed.forEach(userChangeOutbox::deleted);
+                return new HashSet<>(removed);
+            });
+            for (Integer index : indexes) {
+                Long id = ids.get(index);
+                results[index] = deleted.contains(id)
+                        ? BatchItemResponse.builder().index(index).id(id).status(BatchItemStatus.DELETED).build()
+                        : notFound(index, id);
+            }
+        } catch (DataAccessException e) {
+            failChunk(indexes, results, e, half -> deleteChunk(ids, half, results));
+        }
+        evict(requested);
+    }
+
+    private Map<String, String> validate(Object request) {
+        if (request == null) {
+            return Map.of("request", "must not be null");
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<Object> violation : violations) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    private void evict(Set<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * A chunk rolls back as a whole. When a constraint is violated the chunk is split in halves and
+     * retried until the offending rows are alone, so only they are reported as failed; other
+     * failures are not tied to a row and fail the whole chunk. Responses carry a stable error code,
+     * the database message is only logged.
+     */
+    private void failChunk(List<Integer> indexes, BatchItemResponse[] results, RuntimeException e,
+                           Consumer<List<Integer>> retry) {
+        if (indexes.size() > 1 && e instanceof DataIntegrityViolationException) {
+            log.debug("Batch chunk of {} users violated a constraint, retrying in halves", indexes.size());
+            int half = indexes.size() / 2;
+            retry.accept(new ArrayList<>(indexes.subList(0, half)));
+            retry.accept(new ArrayList<>(indexes.subList(half, indexes.size())));
+            return;
+        }
+        BatchItemError error = errorOf(e);
+        if (indexes.size() == 1) {
+            log.warn("Batch item {} failed with {}: {}", indexes.get(0), error, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        } else {
+            log.warn("Batch chunk of {} users failed with {}", indexes.size(), error, e);
+        }
+        for (Integer index : indexes) {
+            results[index] = BatchItemResponse.builder()
+                    .index(index)
+                    .status(BatchItemStatus.FAILED)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    private void logThroughput(String operation, int rows, long startedNanos) {
+        long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos), 1);
+        log.info("Batch {} of {} users took {} ms ({} rows/sec)", operation, rows, elapsedMillis, rows * 1000L / elapsedMillis);
+    }
+
+    private static BatchItemError errorOf(RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException) {
+            return BatchItemError.CONSTRAINT_VIOLATION;
+        }
+        if (e instanceof OptimisticLockingFailureException || e instanceof OptimisticLockException) {
+            return BatchItemError.CONCURRENT_UPDATE;
+        }
+        return BatchItemError.WRITE_FAILED;
+    }
+
+    private static BatchItemResponse invalid(int index, Long id, Map<String, String> errors) {
+        return BatchItemResponse.builder()
+                .index(index)
+                .id(id)
+                .status(BatchItemStatus.INVALID)
+                .validationErrors(errors)
+                .build();
+    }
+
+    private static BatchItemResponse notFound(int index, Long id) {
+        return BatchItemResponse.builder()
+                .index(index)
+                .id(id)
+                .status(BatchItemStatus.NOT_FOUND)
+                .build();
+    }
+}
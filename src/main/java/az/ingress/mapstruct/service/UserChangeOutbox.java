@@ -0,0 +1,54 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.model.UserChange;
+import az.ingress.mapstruct.model.UserChangeType;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Appends change events to the {@code user_changes} outbox. Callers must already be in the
+ * transaction that mutates the user, so the event commits or rolls back with it.
+ */
+@Component
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class UserChangeOutbox {
+
+    private final UserChangeRepository userChangeRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(Long userId, UserResponse user) {
+        append(userId, UserChangeType.CREATED, user);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updated(Long userId, UserResponse user) {
+        append(userId, UserChangeType.UPDATED, user);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(Long userId) {
+        append(userId, UserChangeType.DELETED, null);
+    }
+
+    private void append(Long userId, UserChangeType type, UserResponse user) {
+        UserChange.UserChangeBuilder change = UserChange.builder()
+                .userId(userId)
+                .type(type)
+                .changedAt(Instant.now());
+        if (user != null) {
+            change.name(user.getName())
+                    .surname(user.getSurname())
+                    .age(user.getAge())
+                    .version(user.getVersion());
+        }
+        userChangeRepository.save(change.build());
+    }
+}
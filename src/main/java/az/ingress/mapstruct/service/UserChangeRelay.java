@@ -0,0 +1,104 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.model.UserChangeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Moves committed outbox rows to the {@link UserChangeSink} in batches. Each batch gets its feed
+ * positions and is published in one transaction under an advisory lock, so only one instance
+ * relays at a time and a position is never handed out below one that is already visible.
+ */
+@Component
+@Profile("!reactive & !embedded")
+@Slf4j
+public class UserChangeRelay {
+    static final long LOCK_KEY = 0x75736572_6368676CL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserChangeSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    public UserChangeRelay(JdbcTemplate jdbcTemplate, UserChangeSink sink, PlatformTransactionManager transactionManager,
+                           @Value("${app.outbox.batch-size:500}") int batchSize,
+                           @Value("${app.outbox.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @Scheduled(initialDelayString = "${app.outbox.relay-interval:PT1S}", fixedDelayString = "${app.outbox.relay-interval:PT1S}")
+    public void relay() {
+        int published;
+        do {
+            published = relayBatch();
+        } while (published == batchSize);
+    }
+
+    /**
+     * Publishes up to one batch and returns its size, or 0 when nothing is pending or another
+     * instance holds the relay lock.
+     */
+    int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return 0;
+            }
+            // Positions are drawn over the pending ids in order; drawn in the update's scan order they
+            // would follow where rows sit in the heap, which a purge leaves out of id order.
+            List<UserChangeResponse> changes = jdbcTemplate.query("with batch as ("
+                            + "select id, nextval('user_changes_position_seq') as feed_position from ("
+                            + "select id from user_changes where feed_position is null order by id limit ?) pending) "
+                            + "update user_changes c set feed_position = batch.feed_position, published_at = ? "
+                            + "from batch where c.id = batch.id "
+                            + "returning c.feed_position, c.user_id, c.type, c.name, c.surname, c.age, c.version, c.changed_at",
+                    (rs, rowNum) -> new UserChangeResponse(rs.getLong("feed_position"), rs.getLong("user_id"),
+                            UserChangeType.valueOf(rs.getString("type")), rs.getString("name"), rs.getString("surname"),
+                            rs.getObject("age", Integer.class), rs.getObject("version", Long.class),
+                            rs.getTimestamp("changed_at").toInstant()),
+                    batchSize, Timestamp.from(Instant.now()));
+            if (changes.isEmpty()) {
+                return 0;
+            }
+            changes.sort(Comparator.comparing(UserChangeResponse::getPosition));
+            sink.publish(changes);
+            return changes.size();
+        });
+        if (published != null && published > 0) {
+            log.debug("Relayed {} user changes", published);
+        }
+        return published == null ? 0 : published;
+    }
+
+    /**
+     * Deletes in its own transaction, as with auto-commit off a bare delete is rolled back when the
+     * connection goes back to the pool.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval:PT1H}")
+    public void purgePublished() {
+        Integer purged = transactionTemplate.execute(status ->
+                jdbcTemplate.update("delete from user_changes where published_at < ?",
+                        Timestamp.from(Instant.now().minus(retention))));
+        if (purged != null && purged > 0) {
+            log.debug("Purged {} published user changes", purged);
+        }
+    }
+}
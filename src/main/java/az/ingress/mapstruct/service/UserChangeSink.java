@@ -0,0 +1,15 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+
+import java.util.List;
+
+/**
+ * Destination of published user changes. Called by {@link UserChangeRelay} inside the transaction
+ * that marks the batch as published: throwing leaves the batch for the next run, so a sink sees a
+ * change at least once and must tolerate repeats (by {@code position}).
+ */
+public interface UserChangeSink {
+
+    void publish(List<UserChangeResponse> changes);
+}
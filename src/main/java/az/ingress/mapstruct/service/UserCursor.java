@@ -0,0 +1,29 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.error.InvalidCursor;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+final class UserCursor {
+
+    private UserCursor() {
+    }
+
+    static String encode(long lastId) {
+        byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(lastId).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static long decode(String cursor) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != Long.BYTES) {
+                throw new InvalidCursor("Invalid cursor: " + cursor);
+            }
+            return ByteBuffer.wrap(bytes).getLong();
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursor("Invalid cursor: " + cursor);
+        }
+    }
+}
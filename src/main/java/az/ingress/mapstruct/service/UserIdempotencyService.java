@@ -0,0 +1,111 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.error.IdempotencyKeyReused;
+import az.ingress.mapstruct.error.InvalidIdempotencyKey;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates a user at most once per {@code Idempotency-Key}. A replayed key returns the stored
+ * response without touching the repository, and a request arriving while the first one with the
+ * same key is still running waits for its outcome instead of inserting again.
+ */
+@Service
+@Timed("user.service")
+@Profile("!reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class UserIdempotencyService {
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final IdempotencyStore idempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final UserListSnapshotService userListSnapshotService;
+    private final UserChangeOutbox userChangeOutbox;
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    public UserResponse create(String key, UserRequest request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKey("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request);
+        while (true) {
+            CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> first = inFlight.putIfAbsent(key, mine);
+            if (first == null) {
+                return replay(key, fingerprint, createOnce(key, fingerprint, request, mine));
+            }
+            try {
+                log.debug("Waiting for in-flight create with idempotency key {}", key);
+                return replay(key, fingerprint, first.join());
+            } catch (CompletionException e) {
+                // The first request failed without storing anything, so this one tries itself.
+                log.debug("In-flight create with idempotency key {} failed, retrying", key);
+            }
+        }
+    }
+
+    private IdempotencyRecord createOnce(String key, String fingerprint, UserRequest request,
+                                         CompletableFuture<IdempotencyRecord> mine) {
+        try {
+            IdempotencyRecord record = idempotencyStore.find(key)
+                    .orElseGet(() -> insert(key, fingerprint, request));
+            mine.complete(record);
+            return record;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private IdempotencyRecord insert(String key, String fingerprint, UserRequest request) {
+        try {
+            IdempotencyRecord record = transactionTemplate.execute(status -> {
+                User saved = userRepository.save(userMapper.mapUserRequestToUserEntity(request));
+                IdempotencyRecord created = new IdempotencyRecord(fingerprint, userMapper.mapEntityToUserResponse(saved));
+                idempotencyStore.save(key, created);
+                userChangeOutbox.created(saved.getId(), created.getResponse());
+                log.debug("Created user with id: {} for idempotency key {}", saved.getId(), key);
+                return created;
+            });
+            userListSnapshotService.invalidate();
+            return record;
+        } catch (DuplicateKeyException e) {
+            // Another instance committed the same key first; its user stands and ours was rolled back.
+            return idempotencyStore.find(key).orElseThrow(() -> e);
+        }
+    }
+
+    private static UserResponse replay(String key, String fingerprint, IdempotencyRecord record) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReused("Idempotency-Key " + key + " was already used with a different request");
+        }
+        return record.getResponse();
+    }
+
+    static String fingerprint(UserRequest request) {
+        String canonical = request.getName() + '\u0000' + request.getSurname() + '\u0000' + request.getAge();
+        return DigestUtils.md5DigestAsHex(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,47 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.config.WireFormat;
+import az.ingress.mapstruct.config.WireFormatMappers;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized {@code GET /user/all} body for one local version and change feed position. The arrays
+ * are shared between requests and must never be modified.
+ */
+@Getter
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserListSnapshot {
+    long version;
+    long feedPosition;
+    byte[] json;
+    byte[] gzip;
+    String etag;
+    String gzipEtag;
+    @Getter(AccessLevel.NONE)
+    Map<WireFormat, byte[]> encoded = new ConcurrentHashMap<>();
+
+    /**
+     * Body in {@code format}; binary formats are transcoded from the JSON on first request and
+     * kept for the life of the snapshot.
+     */
+    public byte[] getBody(WireFormat format, WireFormatMappers mappers) {
+        if (format == WireFormat.JSON) {
+            return json;
+        }
+        return encoded.computeIfAbsent(format, f -> mappers.transcode(json, f));
+    }
+
+    public String getEtag(WireFormat format) {
+        if (format == WireFormat.JSON) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + format.getEtagSuffix() + "\"";
+    }
+}
@@ -0,0 +1,151 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.datasource.DataSourceRouting;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import az.ingress.mapstruct.repository.UserJsonRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the serialized user list until a write invalidates it. Writers call {@link #invalidate()}
+ * after or inside their transaction, which defers it to the commit; the next read rebuilds the
+ * snapshot once while concurrent readers wait for it.
+ * <p>
+ * Invalidation only reaches this instance. Writes made elsewhere are caught by comparing the
+ * change feed position, which every instance shares, at most once per
+ * {@code app.user-list.recheck-interval}; they show up once the relay has published them, so
+ * another instance's write can be missed for up to the relay interval plus the recheck interval.
+ */
+@Service
+@Profile("!reactive")
+@Slf4j
+public class UserListSnapshotService {
+
+    private static final int INITIAL_BUFFER = 8192;
+
+    private final UserJsonRepository userJsonRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long recheckNanos;
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile UserListSnapshot snapshot;
+    private volatile long checkedAt;
+
+    public UserListSnapshotService(UserJsonRepository userJsonRepository, UserChangeRepository userChangeRepository,
+                                   ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                   @Value("${app.user-list.recheck-interval:1s}") Duration recheckInterval) {
+        this.userJsonRepository = userJsonRepository;
+        this.userChangeRepository = userChangeRepository;
+        this.objectMapper = objectMapper;
+        this.recheckNanos = recheckInterval.toNanos();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A rebuild before the commit would cache the old rows under the new version.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    public UserListSnapshot current() {
+        UserListSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version.get() && !recheckDue()) {
+            return current;
+        }
+        rebuildLock.lock();
+        try {
+            current = snapshot;
+            long wanted = version.get();
+            if (current != null && current.getVersion() == wanted) {
+                if (!recheckDue()) {
+                    return current;
+                }
+                long position = lastPosition();
+                checkedAt = System.nanoTime();
+                if (position == current.getFeedPosition()) {
+                    return current;
+                }
+            }
+            current = build(wanted, current);
+            snapshot = current;
+            checkedAt = System.nanoTime();
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean recheckDue() {
+        return System.nanoTime() - checkedAt >= recheckNanos;
+    }
+
+    private long lastPosition() {
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.forcePrimary()) {
+            return readOnlyTransaction.execute(status -> userChangeRepository.findLastPosition());
+        }
+    }
+
+    private UserListSnapshot build(long version, UserListSnapshot previous) {
+        // The previous body is the best size estimate and spares the buffer most of its regrowth.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(previous != null ? previous.getJson().length : INITIAL_BUFFER);
+        long position;
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            // A replica could still miss the write that invalidated the previous snapshot.
+            try (DataSourceRouting.Scope ignored = DataSourceRouting.forcePrimary()) {
+                // Reading the position first means the rows are at least that new; a change landing
+                // in between costs one extra rebuild at the next recheck, never a missed one.
+                position = readOnlyTransaction.execute(status -> {
+                    long read = userChangeRepository.findLastPosition();
+                    userJsonRepository.writeAll(generator);
+                    return read;
+                });
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize user list", e);
+        }
+        byte[] json = out.toByteArray();
+        String hash = DigestUtils.md5DigestAsHex(json);
+        log.debug("Rebuilt user list snapshot version {} at feed position {} ({} bytes)", version, position, json.length);
+        return new UserListSnapshot(version, position, json, gzip(json), "\"0" + hash + "\"", "\"0" + hash + "-gzip\"");
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(json.length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
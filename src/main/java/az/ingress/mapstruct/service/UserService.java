@@ -1,63 +1,227 @@
 package az.ingress.mapstruct.service;
 
+import az.ingress.mapstruct.config.CacheConfig;
+import az.ingress.mapstruct.datasource.DataSourceRouting;
+import az.ingress.mapstruct.dto.projection.UserView;
 import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.UserChangePageResponse;
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
 import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.dto.response.UserSliceResponse;
+import az.ingress.mapstruct.error.InvalidSearchRequest;
 import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.error.UserVersionConflict;
 import az.ingress.mapstruct.mapper.UserMapper;
 import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import az.ingress.mapstruct.repository.UserJsonRepository;
 import az.ingress.mapstruct.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 @Service
+@Timed("user.service")
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CHANGES = 1000;
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "name", "surname", "age");
+
     private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final UserListSnapshotService userListSnapshotService;
+    private final ConflictRetry conflictRetry;
+    private final CacheManager cacheManager;
+    private final UserChangeOutbox userChangeOutbox;
+    private final UserChangeRepository userChangeRepository;
+    private final UserJsonRepository userJsonRepository;
+    private final TransactionTemplate transactionTemplate;
 
+    @Transactional
     public UserResponse create(UserRequest request) {
-        log.info("Start my create method");
-        User user = UserMapper.INSTANCE.mapUserRequestToUserEntity(request);
+        User user = userMapper.mapUserRequestToUserEntity(request);
         User saved = userRepository.save(user);
-        log.info("My create method is ended");
-        return UserMapper.INSTANCE.mapEntityToUserResponse(saved);
+        UserResponse created = userMapper.mapEntityToUserResponse(saved);
+        userChangeOutbox.created(saved.getId(), created);
+        userListSnapshotService.invalidate();
+        log.debug("Created user with id: {}", saved.getId());
+        return created;
     }
 
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id", sync = true)
+    @Transactional(readOnly = true)
     public UserResponse getById(Long id) {
-        log.info("getById method is start");
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFound("User not found with id: " + id));
-        log.info("getById method is ended");
-        return UserMapper.INSTANCE.mapEntityToUserResponse(user);
+        // Fills a cache that outlives the replica lag, so it reads what the last write left behind.
+        UserResponse user = DataSourceRouting.onPrimary(() -> userRepository.findResponseById(id))
+                .orElseThrow(() -> new UserNotFound(id));
+        log.debug("Loaded user with id: {}", id);
+        return user;
     }
 
+    @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
-        log.info("My getAllUsers method start");
-        List<User> all = userRepository.findAll();
-        log.info("My getAllUsers method is ended");
-        return UserMapper.INSTANCE.mapEntityListToUserResponseList(all);
+        List<UserResponse> all = userRepository.findAllResponses();
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded {} users", all.size());
+        }
+        return all;
+    }
+
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsersPage(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long afterId = cursor == null || cursor.isEmpty() ? 0L : UserCursor.decode(cursor);
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasNext = users.size() > pageSize;
+        List<User> page = hasNext ? users.subList(0, pageSize) : users;
+        return UserPageResponse.builder()
+                .users(userMapper.mapEntityListToUserResponseList(page))
+                .nextCursor(hasNext ? UserCursor.encode(page.get(pageSize - 1).getId()) : null)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public UserSliceResponse search(UserSearchRequest request) {
+        if (request.getMinAge() != null && request.getMaxAge() != null && request.getMinAge() > request.getMaxAge()) {
+            throw new InvalidSearchRequest("minAge must not be greater than maxAge");
+        }
+        int pageSize = Math.min(Math.max(request.getSize(), 1), MAX_PAGE_SIZE);
+        PageRequest pageable = PageRequest.of(Math.max(request.getPage(), 0), pageSize, parseSort(request.getSort()));
+        Slice<User> slice = userRepository.search(request.getName(), request.getSurname(),
+                request.getMinAge(), request.getMaxAge(), pageable);
+        return UserSliceResponse.builder()
+                .users(userMapper.mapEntityListToUserResponseList(slice.getContent()))
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .hasNext(slice.hasNext())
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllUsers(JsonGenerator generator) {
+        userJsonRepository.writeAll(generator);
+    }
+
+    /**
+     * Published changes after feed position {@code since}, oldest first. Consumers pass the
+     * returned {@code next} as {@code since} on their next poll.
+     */
+    @Transactional(readOnly = true)
+    public UserChangePageResponse getChanges(long since, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_CHANGES);
+        List<UserChangeResponse> changes = userChangeRepository.findPublishedAfter(since, PageRequest.of(0, pageSize));
+        return UserChangePageResponse.builder()
+                .changes(changes)
+                .next(changes.isEmpty() ? since : changes.get(changes.size() - 1).getPosition())
+                .build();
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    @Transactional
     public void deleteUserById(Long id) {
-        log.info("My deleteUserById method start");
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFound("User not found with id: " + id));
-        userRepository.deleteById(id);
-        log.info("My deleteUserById method is ended");
-    }
-
-    public UserResponse updateUser(Long id, UserRequest request) {
-        log.info("My updateUser method start");
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFound("User not found with id: " + id));
-        user.setName(request.getName());
-        user.setSurname(request.getSurname());
-        user.setAge(request.getAge());
-        User saved = userRepository.save(user);
-        log.info("My updateUser method is ended");
-        return UserMapper.INSTANCE.mapEntityToUserResponse(saved);
+        if (userRepository.deleteUserById(id) == 0) {
+            throw new UserNotFound(id);
+        }
+        userChangeOutbox.deleted(id);
+        userListSnapshotService.invalidate();
+        log.debug("Deleted user with id: {}", id);
+    }
+
+    /**
+     * Overwrites the user. With a non-null {@code expectedVersion} the write only applies if
+     * nobody has updated the row since that version was read, otherwise {@link UserVersionConflict}.
+     */
+    @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    @Transactional
+    public UserResponse updateUser(Long id, UserRequest request, Long expectedVersion) {
+        Optional<UserView> view = expectedVersion == null
+                ? userRepository.updateUser(id, request.getName(), request.getSurname(), request.getAge())
+                : userRepository.updateUserIfVersion(id, request.getName(), request.getSurname(), request.getAge(), expectedVersion);
+        UserResponse updated = view.map(userMapper::mapViewToUserResponse)
+                .orElseThrow(() -> notFoundOrConflict(id));
+        userChangeOutbox.updated(id, updated);
+        userListSnapshotService.invalidate();
+        log.debug("Updated user with id: {}", id);
+        return updated;
+    }
+
+    /**
+     * Read-modify-write for internal callers: applies {@code change} to the current state and
+     * writes it back conditionally, retrying with backoff when a concurrent update wins the race.
+     * Each attempt runs in its own transaction and the backoff sleeps between them, so a waiting
+     * retry holds no connection; the change event commits with the attempt that wins.
+     */
+    @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    public UserResponse modifyUser(Long id, UnaryOperator<UserRequest> change) {
+        UserResponse updated = conflictRetry.execute(() -> {
+            // A lost race comes back empty rather than thrown, so a caller's transaction is not marked rollback-only.
+            Optional<UserResponse> won = transactionTemplate.execute(status -> {
+                UserResponse current = userRepository.findResponseById(id)
+                        .orElseThrow(() -> new UserNotFound(id));
+                UserRequest request = change.apply(new UserRequest(current.getName(), current.getSurname(), current.getAge()));
+                Optional<UserResponse> written = userRepository.updateUserIfVersion(id, request.getName(),
+                                request.getSurname(), request.getAge(), current.getVersion())
+                        .map(userMapper::mapViewToUserResponse);
+                written.ifPresent(response -> {
+                    userChangeOutbox.updated(id, response);
+                    userListSnapshotService.invalidate();
+                });
+                return written;
+            });
+            return won.orElseThrow(() -> notFoundOrConflict(id));
+        });
+        log.debug("Modified user with id: {}", id);
+        return updated;
+    }
+
+    private RuntimeException notFoundOrConflict(Long id) {
+        // Concurrent @CachePut calls can land out of order; drop the entry so the next read sees the winner.
+        Cache cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        if (cache != null) {
+            cache.evict(id);
+        }
+        return userRepository.findVersionById(id)
+                .<RuntimeException>map(version -> new UserVersionConflict("User with id: " + id + " was modified concurrently", version))
+                .orElseGet(() -> new UserNotFound(id));
+    }
+
+    private static Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.unsorted();
+        }
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        if (!SORTABLE_FIELDS.contains(field) || parts.length > 2) {
+            throw new InvalidSearchRequest("Unsupported sort: " + sort);
+        }
+        if (parts.length == 1) {
+            return Sort.by(field);
+        }
+        Sort.Direction direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                .orElseThrow(() -> new InvalidSearchRequest("Unsupported sort: " + sort));
+        return Sort.by(direction, field);
     }
 }
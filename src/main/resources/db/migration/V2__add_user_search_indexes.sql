@@ -0,0 +1,10 @@
+-- flyway:executeInTransaction=false
+-- Built concurrently so writes to users carry on during the build; that cannot run inside a
+-- transaction. A build that fails part way leaves an invalid index behind, so a rerun drops it first.
+-- text_pattern_ops lets LIKE 'prefix%' use the index regardless of the database collation.
+drop index concurrently if exists users_name_prefix_idx;
+create index concurrently users_name_prefix_idx on users (name text_pattern_ops);
+drop index concurrently if exists users_surname_prefix_idx;
+create index concurrently users_surname_prefix_idx on users (surname text_pattern_ops);
+drop index concurrently if exists users_age_idx;
+create index concurrently users_age_idx on users (age, id);
@@ -0,0 +1,2 @@
+-- Optimistic locking: every update bumps the version, conditional updates compare it.
+alter table users add column version bigint not null default 0;
@@ -0,0 +1,5 @@
+-- Mirror the UserRequest validation in the database. NOT VALID enforces the checks on every new
+-- write right away without scanning the existing rows under an exclusive lock; V5 validates them.
+alter table users add constraint users_name_not_blank check (name is not null and name ~ '\S') not valid;
+alter table users add constraint users_surname_not_blank check (surname is not null and surname ~ '\S') not valid;
+alter table users add constraint users_age_min check (age is not null and age >= 10) not valid;
@@ -0,0 +1,5 @@
+-- Runs in its own transaction after V4, so the scan only takes a SHARE UPDATE EXCLUSIVE lock and
+-- reads and writes carry on. Fails if legacy rows violate a constraint; fix the data and rerun.
+alter table users validate constraint users_name_not_blank;
+alter table users validate constraint users_surname_not_blank;
+alter table users validate constraint users_age_min;
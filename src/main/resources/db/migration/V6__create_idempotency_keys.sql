@@ -0,0 +1,14 @@
+-- Responses of POST /user per Idempotency-Key, used when app.idempotency.store is jdbc.
+create table if not exists idempotency_keys
+(
+    idempotency_key varchar(255) not null,
+    fingerprint     varchar(32)  not null,
+    name            varchar(255),
+    surname         varchar(255),
+    age             integer,
+    version         bigint,
+    created_at      timestamptz  not null,
+    primary key (idempotency_key)
+);
+
+create index if not exists idempotency_keys_created_at_idx on idempotency_keys (created_at);
@@ -0,0 +1,23 @@
+-- Transactional outbox of user mutations. Rows are written in the mutating transaction; the relay
+-- publishes them and assigns feed_position, which only grows in publish order.
+create sequence if not exists user_changes_seq start with 1 increment by 50;
+create sequence if not exists user_changes_position_seq;
+
+create table if not exists user_changes
+(
+    id            bigint      not null,
+    user_id       bigint      not null,
+    type          varchar(16) not null,
+    name          varchar(255),
+    surname       varchar(255),
+    age           integer,
+    version       bigint,
+    changed_at    timestamptz not null,
+    feed_position bigint,
+    published_at  timestamptz,
+    primary key (id),
+    constraint user_changes_feed_position_key unique (feed_position)
+);
+
+create index if not exists user_changes_unpublished_idx on user_changes (id) where feed_position is null;
+create index if not exists user_changes_published_at_idx on user_changes (published_at);
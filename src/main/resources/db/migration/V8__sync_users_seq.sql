@@ -0,0 +1,4 @@
+-- Databases baselined at version 1 never ran V1, so users_seq may be missing there, and ids
+-- assigned before it existed can sit above it. Move it past the highest id; never backwards.
+create sequence if not exists users_seq start with 1 increment by 50;
+select setval('users_seq', greatest(coalesce(max(id), 0) + 1, (select last_value from users_seq))) from users;
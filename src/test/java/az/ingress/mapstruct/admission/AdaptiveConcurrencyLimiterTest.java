@@ -0,0 +1,110 @@
+package az.ingress.mapstruct.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void givenLimitReachedWhenAcquiringThenRejectedUntilPermitReleased() {
+        //Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 2, 2.0);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        //Act
+        boolean atLimit = limiter.tryAcquire();
+        limiter.release(FAST);
+        boolean afterRelease = limiter.tryAcquire();
+
+        //Assert
+        assertThat(atLimit).isFalse();
+        assertThat(afterRelease).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void givenFastResponsesAtFullUseWhenReleasedThenLimitGrowsUpToMax() {
+        //Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 2.0);
+
+        //Act
+        for (int i = 0; i < 10_000; i++) {
+            saturate(limiter);
+            limiter.release(FAST);
+            releaseAll(limiter);
+        }
+
+        //Assert
+        assertThat(limiter.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void givenLatencyRisingAboveToleranceWhenReleasedThenLimitBacksOffToMin() {
+        //Arrange
+        AtomicLong now = new AtomicLong(0);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 20, 2.0, now::get);
+        limiter.tryAcquire();
+        limiter.release(FAST);
+
+        //Act
+        for (int i = 0; i < 1_000; i++) {
+            now.addAndGet(SLOW);
+            limiter.tryAcquire();
+            limiter.release(SLOW);
+        }
+
+        //Assert
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void givenSlowBurstWithinOneLatencyWhenReleasedThenLimitDecreasesOnce() {
+        //Arrange
+        AtomicLong now = new AtomicLong(0);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 20, 2.0, now::get);
+        limiter.tryAcquire();
+        limiter.release(FAST);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW);
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        //Act
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW);
+        }
+
+        //Assert
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    void givenInconsistentBoundsWhenCreatedThenRejected() {
+        //Act & Assert
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 4, 8, 2.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+            // take every permit
+        }
+    }
+
+    private static void releaseAll(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.getInFlight() > 0) {
+            limiter.release(FAST);
+        }
+    }
+}
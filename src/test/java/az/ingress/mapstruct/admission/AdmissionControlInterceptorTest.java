@@ -0,0 +1,126 @@
+package az.ingress.mapstruct.admission;
+
+import az.ingress.mapstruct.error.RequestThrottled;
+import az.ingress.mapstruct.error.ServiceOverloaded;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdmissionControlInterceptor interceptor;
+
+    private HandlerMethod handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AdmissionProperties.RateLimit rateLimit = new AdmissionProperties.RateLimit();
+        rateLimit.setPermitsPerSecond(0.001);
+        rateLimit.setBurst(2);
+        AdmissionProperties.ConcurrencyLimit concurrencyLimit = new AdmissionProperties.ConcurrencyLimit();
+        concurrencyLimit.setInitialLimit(1);
+        concurrencyLimit.setMaxLimit(1);
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getRateLimits().put("POST /user/batch", rateLimit);
+        properties.getConcurrencyLimits().put("GET /user/all", concurrencyLimit);
+        properties.getRateLimits().put("PUT /user/batch", rateLimit);
+        properties.getConcurrencyLimits().put("PUT /user/batch", concurrencyLimit);
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new AdmissionControlInterceptor(properties, meterRegistry);
+        handler = new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+    }
+
+    @Test
+    void givenRateLimitExhaustedWhenRequestArrivesThenThrottledWithRetryAfter() {
+        //Arrange
+        interceptor.preHandle(request("POST", "/user/batch"), new MockHttpServletResponse(), handler);
+        interceptor.preHandle(request("POST", "/user/batch"), new MockHttpServletResponse(), handler);
+
+        //Act & Assert
+        assertThatThrownBy(() -> interceptor.preHandle(request("POST", "/user/batch"), new MockHttpServletResponse(), handler))
+                .isInstanceOfSatisfying(RequestThrottled.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(1000));
+        assertThat(meterRegistry.get(AdmissionControlInterceptor.SHED_METRIC)
+                .tag("uri", "/user/batch")
+                .tag("reason", "throttled")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void givenConcurrencyLimitReachedWhenRequestArrivesThenOverloadedUntilFirstCompletes() {
+        //Arrange
+        MockHttpServletRequest first = request("GET", "/user/all");
+        interceptor.preHandle(first, new MockHttpServletResponse(), handler);
+
+        //Act & Assert
+        assertThatThrownBy(() -> interceptor.preHandle(request("GET", "/user/all"), new MockHttpServletResponse(), handler))
+                .isInstanceOf(ServiceOverloaded.class);
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), handler, null);
+        assertThat(interceptor.preHandle(request("GET", "/user/all"), new MockHttpServletResponse(), handler)).isTrue();
+        assertThat(meterRegistry.get(AdmissionControlInterceptor.SHED_METRIC)
+                .tag("uri", "/user/all")
+                .tag("reason", "overloaded")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void givenConcurrencyLimitReachedWhenRequestShedThenRateTokenReturned() {
+        //Arrange
+        MockHttpServletRequest first = request("PUT", "/user/batch");
+        interceptor.preHandle(first, new MockHttpServletResponse(), handler);
+        assertThatThrownBy(() -> interceptor.preHandle(request("PUT", "/user/batch"), new MockHttpServletResponse(), handler))
+                .isInstanceOf(ServiceOverloaded.class);
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), handler, null);
+
+        //Act
+        boolean admitted = interceptor.preHandle(request("PUT", "/user/batch"), new MockHttpServletResponse(), handler);
+
+        //Assert
+        assertThat(admitted).isTrue();
+        assertThat(meterRegistry.find(AdmissionControlInterceptor.SHED_METRIC)
+                .tag("uri", "/user/batch")
+                .tag("reason", "throttled")
+                .counter().count()).isZero();
+    }
+
+    @Test
+    void givenAsyncDispatchWhenStreamCompletesThenPermitKeptUntilAfterCompletion() throws Exception {
+        //Arrange
+        MockHttpServletRequest request = request("GET", "/user/all");
+        interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), handler);
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        //Act
+        boolean redispatched = interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+
+        //Assert
+        assertThat(redispatched).isTrue();
+        assertThat(interceptor.preHandle(request("GET", "/user/all"), new MockHttpServletResponse(), handler)).isTrue();
+    }
+
+    @Test
+    void givenUnconfiguredEndpointWhenRequestsArriveThenAllAdmitted() {
+        //Act & Assert
+        for (int i = 0; i < 100; i++) {
+            assertThat(interceptor.preHandle(request("GET", "/user/{id}"), new MockHttpServletResponse(), handler)).isTrue();
+        }
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
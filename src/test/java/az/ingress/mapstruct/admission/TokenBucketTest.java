@@ -0,0 +1,107 @@
+package az.ingress.mapstruct.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    void givenFullBucketWhenBurstTakenThenNextRequestWaitsOneInterval() {
+        //Arrange
+        AtomicLong now = new AtomicLong(1_000);
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+
+        //Act
+        long first = bucket.tryAcquire();
+        long second = bucket.tryAcquire();
+        long third = bucket.tryAcquire();
+        long fourth = bucket.tryAcquire();
+
+        //Assert
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(fourth).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void givenRefundedPermitWhenAcquiringThenAdmittedWithoutWaiting() {
+        //Arrange
+        AtomicLong now = new AtomicLong(1_000);
+        TokenBucket bucket = new TokenBucket(10, 1, now::get);
+        bucket.tryAcquire();
+
+        //Act
+        bucket.refund();
+        long refunded = bucket.tryAcquire();
+        long next = bucket.tryAcquire();
+
+        //Assert
+        assertThat(refunded).isZero();
+        assertThat(next).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void givenEmptyBucketWhenTimePassesThenPermitsRefillAtRate() {
+        //Arrange
+        AtomicLong now = new AtomicLong(1_000);
+        TokenBucket bucket = new TokenBucket(10, 1, now::get);
+        bucket.tryAcquire();
+
+        //Act
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        long early = bucket.tryAcquire();
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        long onTime = bucket.tryAcquire();
+
+        //Assert
+        assertThat(early).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(onTime).isZero();
+    }
+
+    @Test
+    void givenIdleBucketWhenLongTimePassesThenOnlyBurstIsAvailable() {
+        //Arrange
+        AtomicLong now = new AtomicLong(-5_000);
+        TokenBucket bucket = new TokenBucket(100, 2, now::get);
+
+        //Act
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        int admitted = 0;
+        while (bucket.tryAcquire() == 0) {
+            admitted++;
+        }
+
+        //Assert
+        assertThat(admitted).isEqualTo(2);
+    }
+
+    @Test
+    void givenConcurrentCallersWhenBurstContendedThenExactlyBurstAdmitted() throws Exception {
+        //Arrange
+        AtomicLong now = new AtomicLong(0);
+        TokenBucket bucket = new TokenBucket(1, 500, now::get);
+        AtomicInteger admitted = new AtomicInteger();
+
+        //Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 2_000; i++) {
+                executor.submit(() -> {
+                    if (bucket.tryAcquire() == 0) {
+                        admitted.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        //Assert
+        assertThat(admitted).hasValue(500);
+    }
+}
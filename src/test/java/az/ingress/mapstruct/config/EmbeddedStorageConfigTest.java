@@ -0,0 +1,269 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.dto.request.UserBatchUpdateRequest;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.BatchItemStatus;
+import az.ingress.mapstruct.dto.response.UserChangePageResponse;
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.dto.response.UserSliceResponse;
+import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import az.ingress.mapstruct.model.UserChangeType;
+import az.ingress.mapstruct.service.UserBatchService;
+import az.ingress.mapstruct.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The service layer on the embedded store, with no data source in the context. Tests share the
+ * store, so each one works on users it creates.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("embedded")
+class EmbeddedStorageConfigTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void embedded(DynamicPropertyRegistry registry) {
+        registry.add("app.embedded.data-dir", () -> dataDir.toString());
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void givenEmbeddedProfileWhenContextStartsThenNoDataSource() {
+        //Act & Assert
+        assertThat(context.getBeanProvider(DataSource.class).getIfAvailable()).isNull();
+    }
+
+    @Test
+    void givenCreatedUserWhenGetByIdThenFoundWithFirstVersion() {
+        //Arrange
+        Long id = create("Kamran", "Babayev", 24);
+
+        //Act
+        UserResponse user = userService.getById(id);
+
+        //Assert
+        assertThat(user).isEqualTo(new UserResponse("Kamran", "Babayev", 24, 0L));
+    }
+
+    @Test
+    void givenMissingIdWhenGetByIdThenNotFound() {
+        //Act & Assert
+        assertThatThrownBy(() -> userService.getById(Long.MAX_VALUE)).isInstanceOf(UserNotFound.class);
+    }
+
+    @Test
+    void givenStaleVersionWhenUpdateUserThenConflictWithCurrentVersion() {
+        //Arrange
+        Long id = create("Kamran", "Babayev", 24);
+        userService.updateUser(id, new UserRequest("Kazim", "Ayxanov", 25), null);
+
+        //Act & Assert
+        assertThatThrownBy(() -> userService.updateUser(id, new UserRequest("Ali", "Valiyev", 26), 0L))
+                .isInstanceOfSatisfying(UserVersionConflict.class,
+                        conflict -> assertThat(conflict.getCurrentVersion()).isEqualTo(1L));
+        assertThat(userService.updateUser(id, new UserRequest("Ali", "Valiyev", 26), 1L).getVersion()).isEqualTo(2L);
+        assertThat(userService.getById(id).getName()).isEqualTo("Ali");
+    }
+
+    @Test
+    void givenModifyUserWhenAppliedThenReadModifyWriteOnCurrentState() {
+        //Arrange
+        Long id = create("Kamran", "Babayev", 24);
+
+        //Act
+        UserResponse modified = userService.modifyUser(id,
+                request -> new UserRequest(request.getName(), request.getSurname(), request.getAge() + 1));
+
+        //Assert
+        assertThat(modified).isEqualTo(new UserResponse("Kamran", "Babayev", 25, 1L));
+    }
+
+    @Test
+    void givenDeletedUserWhenDeletedAgainThenNotFound() {
+        //Arrange
+        Long id = create("Kamran", "Babayev", 24);
+        userService.deleteUserById(id);
+
+        //Act & Assert
+        assertThatThrownBy(() -> userService.deleteUserById(id)).isInstanceOf(UserNotFound.class);
+        assertThatThrownBy(() -> userService.getById(id)).isInstanceOf(UserNotFound.class);
+        assertThatThrownBy(() -> userService.updateUser(id, new UserRequest("Ali", "Valiyev", 26), null))
+                .isInstanceOf(UserNotFound.class);
+    }
+
+    @Test
+    void givenMoreUsersThanPageSizeWhenPagedThenCursorWalksAllInIdOrder() {
+        //Arrange
+        create("Page", "One", 20);
+        create("Page", "Two", 21);
+        create("Page", "Three", 22);
+        List<String> surnames = new ArrayList<>();
+
+        //Act
+        String cursor = null;
+        do {
+            UserPageResponse page = userService.getUsersPage(cursor, 2);
+            page.getUsers().stream().filter(user -> user.getName().equals("Page"))
+                    .forEach(user -> surnames.add(user.getSurname()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        //Assert
+        assertThat(surnames).containsExactly("One", "Two", "Three");
+    }
+
+    @Test
+    void givenFiltersAndSortWhenSearchThenMatchingUsersInOrder() {
+        //Arrange
+        create("Searchable", "Zeynalov", 30);
+        create("Searchable", "Babayev", 40);
+        create("Searchable", "Valiyev", 10);
+        create("Other", "Babayev", 35);
+
+        //Act
+        UserSliceResponse first = userService.search(UserSearchRequest.builder()
+                .name("Search").minAge(20).sort("age,desc").size(1).build());
+        UserSliceResponse second = userService.search(UserSearchRequest.builder()
+                .name("Search").minAge(20).sort("age,desc").page(1).size(1).build());
+
+        //Assert
+        assertThat(first.getUsers()).extracting(UserResponse::getSurname).containsExactly("Babayev");
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getUsers()).extracting(UserResponse::getSurname).containsExactly("Zeynalov");
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    void givenBatchWhenCreatedUpdatedAndDeletedThenPerItemResults() {
+        //Arrange
+        List<BatchItemResponse> created = userBatchService.createAll(List.of(
+                new UserRequest("Batch", "One", 20), new UserRequest("Batch", "Two", 21)));
+        Long id = created.get(0).getId();
+
+        //Act
+        List<BatchItemResponse> updated = userBatchService.updateAll(List.of(
+                new UserBatchUpdateRequest(id, "Batch", "Updated", 30),
+                new UserBatchUpdateRequest(Long.MAX_VALUE, "Batch", "Missing", 30)));
+        List<BatchItemResponse> deleted = userBatchService.deleteAll(List.of(created.get(1).getId(), Long.MAX_VALUE));
+
+        //Assert
+        assertThat(created).extracting(BatchItemResponse::getStatus).containsOnly(BatchItemStatus.CREATED);
+        assertThat(updated).extracting(BatchItemResponse::getStatus)
+                .containsExactly(BatchItemStatus.UPDATED, BatchItemStatus.NOT_FOUND);
+        assertThat(deleted).extracting(BatchItemResponse::getStatus)
+                .containsExactly(BatchItemStatus.DELETED, BatchItemStatus.NOT_FOUND);
+        assertThat(userService.getById(id)).isEqualTo(new UserResponse("Batch", "Updated", 30, 1L));
+    }
+
+    @Test
+    void givenWritesWhenGetChangesThenPublishedInOrderAfterCommit() {
+        //Arrange
+        long since = feedEnd();
+        Long id = create("Kamran", "Babayev", 24);
+        userService.updateUser(id, new UserRequest("Kazim", "Ayxanov", 25), null);
+        userService.deleteUserById(id);
+
+        //Act
+        List<UserChangeResponse> changes = userService.getChanges(since, 1000).getChanges();
+
+        //Assert
+        assertThat(changes).extracting(UserChangeResponse::getType)
+                .containsExactly(UserChangeType.CREATED, UserChangeType.UPDATED, UserChangeType.DELETED);
+        assertThat(changes).extracting(UserChangeResponse::getUserId).containsOnly(id);
+        assertThat(changes).extracting(UserChangeResponse::getPosition).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void givenFailingTransactionWhenRolledBackThenWriteAndChangeUndone() {
+        //Arrange
+        Long id = create("Kept", "Babayev", 24);
+        long since = feedEnd();
+
+        //Act
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.create(new UserRequest("Rolled", "Back", 24));
+            userService.updateUser(id, new UserRequest("Kazim", "Ayxanov", 25), null);
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+
+        //Assert
+        assertThat(userService.search(UserSearchRequest.builder().name("Rolled").size(10).build()).getUsers()).isEmpty();
+        assertThat(userService.search(UserSearchRequest.builder().name("Kept").size(10).build()).getUsers())
+                .containsExactly(new UserResponse("Kept", "Babayev", 24, 0L));
+        assertThat(userService.getChanges(since, 1000).getChanges()).isEmpty();
+    }
+
+    @Test
+    void givenUsersWhenStreamedThenWrittenInIdOrder() throws IOException {
+        //Arrange
+        create("Stream", "First", 20);
+        create("Stream", "Second", 21);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //Act
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            userService.streamAllUsers(generator);
+        }
+
+        //Assert
+        String json = out.toString();
+        assertThat(json.indexOf("\"First\"")).isPositive().isLessThan(json.indexOf("\"Second\""));
+    }
+
+    private Long create(String name, String surname, int age) {
+        return userBatchService.createAll(List.of(new UserRequest(name, surname, age))).get(0).getId();
+    }
+
+    private long feedEnd() {
+        long next = 0;
+        List<UserChangeResponse> changes;
+        do {
+            UserChangePageResponse page = userService.getChanges(next, 1000);
+            changes = page.getChanges();
+            next = page.getNext();
+        } while (!changes.isEmpty());
+        return next;
+    }
+}
@@ -0,0 +1,37 @@
+package az.ingress.mapstruct.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class FlywayConfigTest {
+
+    @Test
+    void givenPendingMigrationsWhenStrategyRunsThenMigrationTimed() {
+        //Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+        Flyway flyway = mock(Flyway.class);
+        MigrateResult result = new MigrateResult("4", "public", "public");
+        result.migrationsExecuted = 1;
+        result.targetSchemaVersion = "5";
+        when(flyway.migrate()).thenReturn(result);
+
+        //Act
+        new FlywayConfig().timedMigrationStrategy(beanFactory.getBeanProvider(MeterRegistry.class))
+                .migrate(flyway);
+
+        //Assert
+        verify(flyway, times(1)).migrate();
+        Timer timer = meterRegistry.get(FlywayConfig.METRIC_NAME).tag("outcome", "applied").timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
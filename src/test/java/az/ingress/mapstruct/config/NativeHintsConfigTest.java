@@ -0,0 +1,85 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeHintsConfigTest {
+
+    @Test
+    void givenRegistrarWhenHintsRegisteredThenReflectiveTypesCovered() {
+        //Arrange
+        RuntimeHints hints = new RuntimeHints();
+
+        //Act
+        new NativeHintsConfig.UserRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        //Assert
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(Statement.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserResponse.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserChangeResponse.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+        for (String type : NativeHintsConfig.CAFFEINE_CACHE_CLASSES) {
+            assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))
+                    .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS))
+                    .accepts(hints);
+        }
+    }
+
+    @Test
+    void givenConfiguredCacheSpecWhenCacheBuiltThenGeneratedClassesAreHinted() throws Exception {
+        //Arrange
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yaml"));
+        String spec = yaml.getObject().getProperty("spring.cache.caffeine.spec");
+
+        //Act
+        Cache<Object, Object> cache = Caffeine.from(spec).build();
+        Object localCache = field(cache, "cache");
+        List<String> generated = new ArrayList<>();
+        generated.addAll(hierarchy(localCache.getClass(), "BoundedLocalCache"));
+        generated.addAll(hierarchy(field(localCache, "nodeFactory").getClass(), "Node"));
+
+        //Assert
+        assertThat(NativeHintsConfig.CAFFEINE_CACHE_CLASSES).containsExactlyInAnyOrderElementsOf(generated);
+    }
+
+    private static List<String> hierarchy(Class<?> type, String stopAt) {
+        List<String> names = new ArrayList<>();
+        for (Class<?> current = type; !current.getSimpleName().equals(stopAt); current = current.getSuperclass()) {
+            names.add(current.getName());
+        }
+        return names;
+    }
+
+    private static Object field(Object target, String name) throws ReflectiveOperationException {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(target);
+            } catch (NoSuchFieldException e) {
+                // declared further up
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+}
@@ -0,0 +1,125 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import io.r2dbc.spi.ConnectionFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reactive profile against a real Postgres migrated up front, as the migrate profile would:
+ * no JDBC stack in the context, and the servlet write contract of versions, {@code If-Match}
+ * conflicts and outbox rows committed with each mutation.
+ */
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+@Testcontainers(disabledWithoutDocker = true)
+class ReactiveProfileTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void r2dbc(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> POSTGRES.getJdbcUrl().replace("jdbc:", "r2dbc:"));
+        registry.add("spring.r2dbc.username", POSTGRES::getUsername);
+        registry.add("spring.r2dbc.password", POSTGRES::getPassword);
+    }
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Test
+    void givenReactiveProfileWhenContextStartsThenNoDataSource() {
+        //Act & Assert
+        assertThat(context.getBeanProvider(DataSource.class).getIfAvailable()).isNull();
+    }
+
+    @Test
+    void givenUserWhenUpdatedConditionallyAndDeletedThenVersionsConflictsAndOutboxRows() {
+        //Arrange
+        webTestClient.post().uri("/user")
+                .bodyValue(new UserRequest("Kamran", "Babayev", 24))
+                .exchange()
+                .expectStatus().isOk();
+        Long id = lastId();
+        webTestClient.get().uri("/user/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+
+        //Act
+        webTestClient.put().uri("/user/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(new UserRequest("Kazim", "Ayxanov", 25))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webTestClient.put().uri("/user/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .bodyValue(new UserRequest("Ali", "Valiyev", 26))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        webTestClient.delete().uri("/user/{id}", id)
+                .exchange()
+                .expectStatus().isOk();
+
+        //Assert
+        List<String> changes = DatabaseClient.create(connectionFactory)
+                .sql("select type, name, version from user_changes where user_id = :id order by id")
+                .bind("id", id)
+                .map(row -> row.get("type", String.class) + " " + row.get("name", String.class) + " " + row.get("version", Long.class))
+                .all()
+                .collectList()
+                .block();
+        assertThat(changes).containsExactly("CREATED Kamran 0", "UPDATED Kazim 1", "DELETED null null");
+    }
+
+    /**
+     * The responses carry no id, so the test takes the one the single writer here just created.
+     */
+    private Long lastId() {
+        return DatabaseClient.create(connectionFactory)
+                .sql("select max(id) as id from users")
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,133 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.datasource.DataSourceRouting;
+import az.ingress.mapstruct.datasource.ReplicaSet;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.service.UserChangeRelay;
+import az.ingress.mapstruct.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing through JPA and JDBC with two embedded databases that hold different rows under the
+ * same ids, so every read shows which one answered.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=" + ReadReplicaConfigTest.PRIMARY_URL,
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "app.replicas.enabled=true",
+        "app.replicas.pools[0].url=" + ReadReplicaConfigTest.REPLICA_URL,
+        "app.replicas.pools[0].username=sa",
+        "app.replicas.pools[0].password=",
+        "app.replicas.lag-query=select 0"})
+class ReadReplicaConfigTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    @MockBean
+    private UserChangeRelay userChangeRelay;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReplicaSet replicaSet;
+
+    private final JdbcTemplate primary = database(PRIMARY_URL);
+    private final JdbcTemplate replica = database(REPLICA_URL);
+
+    @BeforeEach
+    void seed() {
+        replica.execute("create table if not exists users "
+                + "(id bigint primary key, name varchar(255), surname varchar(255), age integer, version bigint)");
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("delete from users");
+        }
+        primary.update("insert into users (id, name, surname, age, version) values (100000, 'Kamran', 'Primary', 24, 0)");
+        replica.update("insert into users (id, name, surname, age, version) values (100000, 'Kamran', 'Replica', 24, 0)");
+        cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+        // The replica starts unhealthy until its first check answers.
+        replicaSet.check();
+    }
+
+    @Test
+    void givenReadOnlyServiceCallWhenPagedThenReplicaAnswers() {
+        //Act
+        UserPageResponse page = userService.getUsersPage(null, 20);
+
+        //Assert
+        assertThat(page.getUsers()).extracting(UserResponse::getSurname).containsExactly("Replica");
+    }
+
+    @Test
+    void givenReadOnlyServiceCallWhenStreamedThenJdbcJoinsReplicaConnection() throws IOException {
+        //Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //Act
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            userService.streamAllUsers(generator);
+        }
+
+        //Assert
+        assertThat(out.toString()).contains("\"Replica\"");
+    }
+
+    @Test
+    void givenCachedLookupWhenGetByIdThenPrimaryAnswers() {
+        //Act
+        UserResponse user = userService.getById(100000L);
+
+        //Assert
+        assertThat(user.getSurname()).isEqualTo("Primary");
+    }
+
+    @Test
+    void givenPrimaryForcedWhenPagedThenPrimaryAnswers() {
+        //Act
+        UserPageResponse page = DataSourceRouting.onPrimary(() -> userService.getUsersPage(null, 20));
+
+        //Assert
+        assertThat(page.getUsers()).extracting(UserResponse::getSurname).containsExactly("Primary");
+    }
+
+    @Test
+    void givenWriteWhenCreatedThenStoredOnPrimaryOnly() {
+        //Act
+        userService.create(new UserRequest("Kazim", "Ayxanov", 25));
+
+        //Assert
+        assertThat(primary.queryForObject("select count(*) from users where name = 'Kazim'", Integer.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from users where name = 'Kazim'", Integer.class)).isZero();
+    }
+
+    private static JdbcTemplate database(String url) {
+        return new JdbcTemplate(new SingleConnectionDataSource(url, "sa", "", true));
+    }
+}
@@ -0,0 +1,63 @@
+package az.ingress.mapstruct.config;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WireFormatMappersTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final WireFormatMappers wireFormatMappers = new WireFormatMappers(objectMapper);
+
+    @ParameterizedTest
+    @EnumSource(WireFormat.class)
+    void givenJsonListWhenTranscodedThenDecodesToSameUsers(WireFormat format) throws Exception {
+        //Arrange
+        List<UserResponse> users = List.of(new UserResponse("Kamran", "Babayev", 24), new UserResponse("Ali", "Valiyev", 26));
+        byte[] json = objectMapper.writeValueAsBytes(users);
+
+        //Act
+        byte[] encoded = wireFormatMappers.transcode(json, format);
+
+        //Assert
+        assertThat(wireFormatMappers.get(format).readValue(encoded, new TypeReference<List<UserResponse>>() {
+        })).isEqualTo(users);
+    }
+
+    @Test
+    void givenDefaultConvertersWhenExtendedThenBinaryConvertersFollowJsonWithApplicationMappers() {
+        //Arrange
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+                new ByteArrayHttpMessageConverter(),
+                new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(objectMapper),
+                new MappingJackson2SmileHttpMessageConverter(),
+                new MappingJackson2CborHttpMessageConverter()));
+
+        //Act
+        new WireFormatConfig(wireFormatMappers).extendMessageConverters(converters);
+
+        //Assert
+        assertThat(converters).hasSize(5);
+        assertThat(converters.get(2)).isInstanceOf(MappingJackson2HttpMessageConverter.class);
+        assertThat(((MappingJackson2SmileHttpMessageConverter) converters.get(3)).getObjectMapper())
+                .isSameAs(wireFormatMappers.get(WireFormat.SMILE));
+        assertThat(((MappingJackson2CborHttpMessageConverter) converters.get(4)).getObjectMapper())
+                .isSameAs(wireFormatMappers.get(WireFormat.CBOR));
+    }
+}
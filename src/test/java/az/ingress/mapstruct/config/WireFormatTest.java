@@ -0,0 +1,48 @@
+package az.ingress.mapstruct.config;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WireFormatTest {
+
+    @ParameterizedTest(name = "Accept: {0} -> {1}")
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "null | JSON",
+            "*/* | JSON",
+            "application/json | JSON",
+            "text/html | JSON",
+            "not a media type | JSON",
+            "application/x-jackson-smile | SMILE",
+            "application/cbor | CBOR",
+            "application/json;q=0.5, application/cbor | CBOR",
+            "*/*, application/x-jackson-smile | SMILE",
+            "application/x-jackson-smile;q=0.2, application/*;q=0.8 | JSON",
+            "application/x-jackson-smile;q=0, application/json | JSON",
+            "application/cbor;q=0.1, application/json | JSON",
+            "application/json;q=0.4, application/cbor;q=0.9, */*;q=0.1 | CBOR",
+            "application/json;q=0, */* | SMILE"})
+    void givenAcceptHeaderWhenNegotiatedThenPreferredFormatChosen(String accept, WireFormat expected) {
+        //Act
+        WireFormat format = WireFormat.negotiate(accept, false);
+
+        //Assert
+        assertThat(format).isEqualTo(expected);
+    }
+
+    @ParameterizedTest(name = "Accept: {0} -> {1}")
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "null | JSON",
+            "application/x-ndjson | JSON",
+            "application/x-jackson-smile | SMILE",
+            "application/cbor-seq | CBOR",
+            "application/cbor | JSON"})
+    void givenAcceptHeaderWhenNegotiatedForStreamThenSequenceTypesMatched(String accept, WireFormat expected) {
+        //Act
+        WireFormat format = WireFormat.negotiate(accept, true);
+
+        //Assert
+        assertThat(format).isEqualTo(expected);
+    }
+}
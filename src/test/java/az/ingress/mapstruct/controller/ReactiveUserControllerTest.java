@@ -0,0 +1,187 @@
+package az.ingress.mapstruct.controller;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import az.ingress.mapstruct.service.ReactiveUserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@WebFluxTest(ReactiveUserController.class)
+class ReactiveUserControllerTest {
+
+    private static final String USER_PATH = "/user";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveUserService userService;
+
+    @Test
+    void saveUser_Success() {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 24);
+        when(userService.create(request)).thenReturn(Mono.just(new UserResponse("Kamran", "Babayev", 24)));
+
+        //Act
+        webTestClient.post().uri(USER_PATH)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Kamran")
+                .jsonPath("$.surname").isEqualTo("Babayev")
+                .jsonPath("$.age").isEqualTo(24);
+
+        //Assert
+        verify(userService, times(1)).create(request);
+    }
+
+    @Test
+    void saveUser_WhenAgeLessThan_BadRequest() {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 9);
+
+        //Act
+        webTestClient.post().uri(USER_PATH)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("VALIDATION_ERROR_OCCURRED")
+                .jsonPath("$.validationErrors.age").exists();
+
+        //Assert
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getAllUsers_Success() {
+        //Arrange
+        when(userService.getAllUsers()).thenReturn(Flux.just(
+                new UserResponse("Kamran", "Babayev", 24),
+                new UserResponse("Ali", "Valiyev", 26)));
+
+        //Act
+        webTestClient.get().uri(USER_PATH + "/all")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].name").isEqualTo("Kamran")
+                .jsonPath("$[1].name").isEqualTo("Ali");
+
+        //Assert
+        verify(userService, times(1)).getAllUsers();
+    }
+
+    @Test
+    void getUser_WhenMissing_NotFound() {
+        //Arrange
+        when(userService.getById(1L)).thenReturn(Mono.error(new UserNotFound(1L)));
+
+        //Act
+        webTestClient.get().uri(USER_PATH + "/{id}", 1L)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("User not found with id: 1")
+                .jsonPath("$.status").isEqualTo("Not Found");
+    }
+
+    @Test
+    void getUser_Success_WithETag() {
+        //Arrange
+        when(userService.getById(1L)).thenReturn(Mono.just(new UserResponse("Kamran", "Babayev", 24, 3L)));
+
+        //Act & Assert
+        webTestClient.get().uri(USER_PATH + "/{id}", 1L)
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Kamran");
+    }
+
+    @Test
+    void updateUser_WithIfMatch_PassesExpectedVersion() {
+        //Arrange
+        var request = new UserRequest("Kazim", "Ayxanov", 25);
+        when(userService.updateUser(1L, request, 3L)).thenReturn(Mono.just(new UserResponse("Kazim", "Ayxanov", 25, 4L)));
+
+        //Act
+        webTestClient.put().uri(USER_PATH + "/{id}", 1L)
+                .contentType(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+
+        //Assert
+        verify(userService, times(1)).updateUser(1L, request, 3L);
+    }
+
+    @Test
+    void updateUser_WhenVersionStale_ConflictWithCurrentETag() {
+        //Arrange
+        var request = new UserRequest("Kazim", "Ayxanov", 25);
+        when(userService.updateUser(1L, request, 3L))
+                .thenReturn(Mono.error(new UserVersionConflict("User with id: 1 was modified concurrently", 5L)));
+
+        //Act & Assert
+        webTestClient.put().uri(USER_PATH + "/{id}", 1L)
+                .contentType(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5\"")
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("User with id: 1 was modified concurrently");
+    }
+
+    @Test
+    void updateUser_WhenIfMatchWeak_ConflictWithoutCallingService() {
+        //Act
+        webTestClient.put().uri(USER_PATH + "/{id}", 1L)
+                .contentType(APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .bodyValue(new UserRequest("Kazim", "Ayxanov", 25))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+        //Assert
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void deleteUser_Success() {
+        //Arrange
+        when(userService.deleteUserById(1L)).thenReturn(Mono.empty());
+
+        //Act
+        webTestClient.delete().uri(USER_PATH + "/{id}", 1L)
+                .exchange()
+                .expectStatus().isOk();
+
+        //Assert
+        verify(userService, times(1)).deleteUserById(1L);
+    }
+}
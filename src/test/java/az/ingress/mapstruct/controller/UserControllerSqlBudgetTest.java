@@ -0,0 +1,204 @@
+package az.ingress.mapstruct.controller;
+
+import az.ingress.mapstruct.config.CacheConfig;
+import az.ingress.mapstruct.metrics.SqlStatementMetricsFilter;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import az.ingress.mapstruct.service.UserListSnapshotService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Fails when a {@link UserController} endpoint sends more SQL statements per request than its
+ * budget, as recorded by the production {@code http.server.requests.sql.statements} metric. That
+ * counts on the JDBC connections, so statements from Hibernate and from JdbcTemplate both count,
+ * including those of a streaming body written after the handler returned; a prepared statement
+ * counts once however many rows it batches. Budgets are independent of row counts, so an N+1 or a
+ * lost JDBC batch shows up as soon as the seeded rows or batch sizes exceed them. Every handler
+ * method of the controller must appear in {@link #endpoints()}. Writes include their outbox insert
+ * and, when an id block runs out, a sequence call for users and for user_changes.
+ */
+@SpringBootTest(properties = {"spring.flyway.enabled=true", "app.outbox.relay-interval=PT24H"})
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@Testcontainers(disabledWithoutDocker = true)
+class UserControllerSqlBudgetTest {
+
+    private static final int SEEDED_USERS = 40;
+    private static final int BATCH_SIZE = 25;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserListSnapshotService userListSnapshotService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void seed() {
+        userRepository.deleteAllInBatch();
+        List<User> users = new ArrayList<>(SEEDED_USERS);
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            users.add(User.builder().name("Name" + i).surname("Surname" + i).age(10 + i).build());
+        }
+        ids = userRepository.saveAll(users).stream().map(User::getId).toList();
+        userListSnapshotService.invalidate();
+        cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+    }
+
+    static Stream<Arguments> endpoints() {
+        return Stream.of(
+                budget("POST /user", "", 4, 200, ids -> post("/user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Kamran", 24))),
+                budget("POST /user", "with Idempotency-Key", 4, 200, ids -> post("/user")
+                        .header("Idempotency-Key", "budget-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Kamran", 24))),
+                budget("POST /user/batch", "", 6, 200, ids -> post("/user/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(IntStream.range(0, BATCH_SIZE)
+                                .mapToObj(i -> userJson("Batch" + i, 20))
+                                .collect(Collectors.joining(",", "[", "]")))),
+                budget("PUT /user/batch", "", 5, 200, ids -> put("/user/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids.stream().limit(BATCH_SIZE)
+                                .map(id -> "{\"id\":" + id + ",\"name\":\"Updated\",\"surname\":\"User\",\"age\":30}")
+                                .collect(Collectors.joining(",", "[", "]")))),
+                budget("DELETE /user/batch", "", 5, 200, ids -> delete("/user/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids.stream().limit(BATCH_SIZE).map(String::valueOf)
+                                .collect(Collectors.joining(",", "[", "]")))),
+                // A rebuild reads the change feed position along with the rows.
+                budget("GET /user/all", "", 2, 200, ids -> get("/user/all")),
+                budget("GET /user", "", 1, 200, ids -> get("/user").param("size", "20")),
+                budget("GET /user/search", "", 1, 200, ids -> get("/user/search")
+                        .param("name", "Name")
+                        .param("minAge", "15")
+                        .param("sort", "age,desc")),
+                budget("GET /user/stream", "", 1, 200, ids -> get("/user/stream")),
+                budget("GET /user/changes", "", 1, 200, ids -> get("/user/changes").param("since", "0")),
+                budget("GET /user/{id}", "", 1, 200, ids -> get("/user/{id}", ids.get(0))),
+                budget("PUT /user/{id}", "", 3, 200, ids -> put("/user/{id}", ids.get(0))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Kazim", 25))),
+                budget("PUT /user/{id}", "with stale If-Match", 2, 409, ids -> put("/user/{id}", ids.get(0))
+                        .header(HttpHeaders.IF_MATCH, "\"42\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userJson("Kazim", 25))),
+                budget("DELETE /user/{id}", "", 3, 200, ids -> delete("/user/{id}", ids.get(0))));
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @MethodSource("endpoints")
+    void givenSeededUsersWhenEndpointCalledThenStatementsWithinBudget(String endpoint, String scenario, int budget,
+                                                                      int expectedStatus,
+                                                                      Function<List<Long>, MockHttpServletRequestBuilder> request)
+            throws Exception {
+        //Arrange
+        String[] route = endpoint.split(" ", 2);
+        double before = statements(route[0], route[1]);
+
+        //Act
+        MvcResult result = mockMvc.perform(request.apply(ids)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+
+        //Assert
+        assertThat(result.getResponse().getStatus()).isEqualTo(expectedStatus);
+        assertThat(statements(route[0], route[1]) - before)
+                .as("SQL statements for %s %s", endpoint, scenario)
+                .isBetween(1.0, (double) budget);
+    }
+
+    @Test
+    void givenUserControllerWhenMappingsListedThenEveryEndpointHasBudget() {
+        //Arrange
+        Set<String> budgeted = endpoints().map(arguments -> (String) arguments.get()[0]).collect(Collectors.toSet());
+
+        //Act
+        Set<String> mapped = handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(entry -> entry.getValue().getBeanType() == UserController.class)
+                .flatMap(entry -> entry.getKey().getMethodsCondition().getMethods().stream()
+                        .flatMap(method -> entry.getKey().getPatternValues().stream().map(pattern -> method + " " + pattern)))
+                .collect(Collectors.toSet());
+
+        //Assert
+        assertThat(budgeted).containsAll(mapped);
+    }
+
+    private double statements(String method, String uri) {
+        DistributionSummary summary = meterRegistry.find(SqlStatementMetricsFilter.METRIC_NAME)
+                .tag("method", method)
+                .tag("uri", uri)
+                .summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private static Arguments budget(String endpoint, String scenario, int statements, int expectedStatus,
+                                    Function<List<Long>, MockHttpServletRequestBuilder> request) {
+        return Arguments.of(endpoint, scenario, statements, expectedStatus, request);
+    }
+
+    private static String userJson(String name, int age) {
+        return "{\"name\":\"" + name + "\",\"surname\":\"Babayev\",\"age\":" + age + "}";
+    }
+}
@@ -1,32 +1,70 @@
 package az.ingress.mapstruct.controller;
 
 
+import az.ingress.mapstruct.config.WireFormat;
+import az.ingress.mapstruct.config.WireFormatMappers;
 import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.UserChangePageResponse;
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.dto.response.UserJsonWriter;
+import az.ingress.mapstruct.dto.response.BatchItemStatus;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
 import az.ingress.mapstruct.dto.response.UserResponse;
-import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.dto.response.UserSliceResponse;
+import az.ingress.mapstruct.error.InvalidCursor;
+import az.ingress.mapstruct.error.InvalidSearchRequest;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import az.ingress.mapstruct.error.IdempotencyKeyReused;
+import az.ingress.mapstruct.error.RequestThrottled;
+import az.ingress.mapstruct.error.ServiceOverloaded;
+import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.model.UserChangeType;
+import az.ingress.mapstruct.service.UserBatchService;
+import az.ingress.mapstruct.service.UserIdempotencyService;
+import az.ingress.mapstruct.service.UserListSnapshot;
+import az.ingress.mapstruct.service.UserListSnapshotService;
 import az.ingress.mapstruct.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
+@Import({SimpleMeterRegistry.class, WireFormatMappers.class})
 @RunWith(SpringRunner.class)
 class UserControllerTest {
 
@@ -38,9 +76,21 @@ class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private WireFormatMappers wireFormatMappers;
+
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserBatchService userBatchService;
+
+    @MockBean
+    private UserListSnapshotService userListSnapshotService;
+
+    @MockBean
+    private UserIdempotencyService userIdempotencyService;
+
     @Test
     void saveUser_Success() throws Exception {
         //Arrange
@@ -48,7 +98,6 @@ class UserControllerTest {
         request.setName("Kamran");
         request.setSurname("Babayev");
         request.setAge(24);
-        var user = UserMapper.INSTANCE.mapUserRequestToUserEntity(request);
         var expected = new UserResponse();
         expected.setName("Kamran");
         expected.setSurname("Babayev");
@@ -141,6 +190,109 @@ class UserControllerTest {
         verifyNoInteractions(userService);
     }
 
+    @Test
+    void saveUser_WithIdempotencyKey_CreatedThroughIdempotencyService() throws Exception {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 24);
+        when(userIdempotencyService.create("key-1", request)).thenReturn(new UserResponse("Kamran", "Babayev", 24));
+
+        //Act
+        mockMvc.perform(post(USER_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .header("Idempotency-Key", "key-1")
+                        .content(objAsJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Kamran"));
+
+        //Assert
+        verify(userIdempotencyService, times(1)).create("key-1", request);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void saveUser_WhenIdempotencyKeyReused_UnprocessableEntity() throws Exception {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 24);
+        when(userIdempotencyService.create("key-1", request))
+                .thenThrow(new IdempotencyKeyReused("Idempotency-Key key-1 was already used with a different request"));
+
+        //Act & Assert
+        mockMvc.perform(post(USER_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .header("Idempotency-Key", "key-1")
+                        .content(objAsJson(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.title").value("Idempotency-Key key-1 was already used with a different request"));
+    }
+
+    @Test
+    void saveUser_WhenThrottled_TooManyRequests() throws Exception {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 24);
+        when(userService.create(request)).thenThrow(new RequestThrottled("Rate limit exceeded for POST /user", 2));
+
+        //Act & Assert
+        mockMvc.perform(post(USER_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .content(objAsJson(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(jsonPath("$.title").value("Rate limit exceeded for POST /user"));
+    }
+
+    @Test
+    void createAll_Success() throws Exception {
+        //Arrange
+        var valid = new UserRequest("Kamran", "Babayev", 24);
+        var invalid = new UserRequest("", "Babayev", 24);
+        var created = BatchItemResponse.builder()
+                .index(0)
+                .id(1L)
+                .status(BatchItemStatus.CREATED)
+                .user(new UserResponse("Kamran", "Babayev", 24))
+                .build();
+        var rejected = BatchItemResponse.builder()
+                .index(1)
+                .status(BatchItemStatus.INVALID)
+                .validationErrors(Map.of("name", "Name can not be empty"))
+                .build();
+        when(userBatchService.createAll(List.of(valid, invalid))).thenReturn(List.of(created, rejected));
+
+        //Act
+        mockMvc.perform(post(USER_PATH + "/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(objAsJson(List.of(valid, invalid)))
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].user.name").value("Kamran"))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].validationErrors.name").value("Name can not be empty"));
+
+        //Assert
+        verify(userBatchService, times(1)).createAll(List.of(valid, invalid));
+    }
+
+    @Test
+    void deleteAll_Success() throws Exception {
+        //Arrange
+        var deleted = BatchItemResponse.builder().index(0).id(1L).status(BatchItemStatus.DELETED).build();
+        var missing = BatchItemResponse.builder().index(1).id(2L).status(BatchItemStatus.NOT_FOUND).build();
+        when(userBatchService.deleteAll(List.of(1L, 2L))).thenReturn(List.of(deleted, missing));
+
+        //Act
+        mockMvc.perform(delete(USER_PATH + "/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DELETED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+
+        //Assert
+        verify(userBatchService, times(1)).deleteAll(List.of(1L, 2L));
+        verifyNoInteractions(userService);
+    }
 
     @Test
     void getAllUsers_Success() throws Exception {
@@ -153,7 +305,7 @@ class UserControllerTest {
         expected.setAge(24);
         response.add(expected);
 
-        when(userService.getAllUsers()).thenReturn(response);
+        when(userListSnapshotService.current()).thenReturn(snapshot(response));
 
         //Act
         mockMvc.perform(get(USER_PATH + "/all")
@@ -162,10 +314,275 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Kamran"))
                 .andExpect(jsonPath("$[0].surname").value("Babayev"))
                 .andExpect(jsonPath("$").isNotEmpty())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc\""))
                 .andExpect(status().isOk());
 
         //Assert
-        verify(userService, times(1)).getAllUsers();
+        verify(userListSnapshotService, times(1)).current();
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getAllUsers_WhenOverloaded_ServiceUnavailable() throws Exception {
+        //Arrange
+        when(userListSnapshotService.current()).thenThrow(new ServiceOverloaded("Too many concurrent requests for GET /user/all"));
+
+        //Act & Assert
+        mockMvc.perform(get(USER_PATH + "/all"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.title").value("Too many concurrent requests for GET /user/all"));
+    }
+
+    @Test
+    void getAllUsers_WhenCborAccepted_TranscodedBody() throws Exception {
+        //Arrange
+        List<UserResponse> users = List.of(new UserResponse("Kamran", "Babayev", 24), new UserResponse("Ali", "Valiyev", 26));
+        when(userListSnapshotService.current()).thenReturn(snapshot(users));
+
+        //Act
+        byte[] body = mockMvc.perform(get(USER_PATH + "/all")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc-cbor\""))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //Assert
+        assertThat(wireFormatMappers.get(WireFormat.CBOR).readValue(body, new TypeReference<List<UserResponse>>() {
+        })).isEqualTo(users);
+    }
+
+    @Test
+    void getAllUsers_WhenEtagMatches_NotModified() throws Exception {
+
+        //Arrange
+        when(userListSnapshotService.current()).thenReturn(snapshot(List.of(new UserResponse("Kamran", "Babayev", 24))));
+
+        //Act
+        mockMvc.perform(get(USER_PATH + "/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"0abc\"")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getAllUsers_WhenGzipAccepted_CompressedBody() throws Exception {
+
+        //Arrange
+        UserListSnapshot snapshot = snapshot(List.of(new UserResponse("Kamran", "Babayev", 24)));
+        when(userListSnapshotService.current()).thenReturn(snapshot);
+
+        //Act
+        mockMvc.perform(get(USER_PATH + "/all")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc-gzip\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().bytes(snapshot.getGzip()));
+    }
+
+    @Test
+    void getAllUsers_WhenGzipRefused_PlainBody() throws Exception {
+
+        //Arrange
+        UserListSnapshot snapshot = snapshot(List.of(new UserResponse("Kamran", "Babayev", 24)));
+        when(userListSnapshotService.current()).thenReturn(snapshot);
+
+        //Act
+        mockMvc.perform(get(USER_PATH + "/all")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0abc\""))
+                .andExpect(content().bytes(snapshot.getJson()));
+    }
+
+    @Test
+    void acceptsGzip_ParsesCodings() {
+        //Act & Assert
+        assertThat(UserController.acceptsGzip("gzip")).isTrue();
+        assertThat(UserController.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(UserController.acceptsGzip("*")).isTrue();
+        assertThat(UserController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(UserController.acceptsGzip("gzip; q=0.0, *")).isFalse();
+        assertThat(UserController.acceptsGzip("x-gzip")).isFalse();
+        assertThat(UserController.acceptsGzip("identity")).isFalse();
+        assertThat(UserController.acceptsGzip(null)).isFalse();
+    }
+
+    @Test
+    void getUsersPage_Success() throws Exception {
+
+        //Arrange
+        var user = new UserResponse();
+        user.setName("Kamran");
+        user.setSurname("Babayev");
+        user.setAge(24);
+        var page = new UserPageResponse(List.of(user), "AAAAAAAAAAE");
+
+        when(userService.getUsersPage("AAAAAAAAAAA", 1)).thenReturn(page);
+
+        //Act
+        mockMvc.perform(get(USER_PATH)
+                        .param("cursor", "AAAAAAAAAAA")
+                        .param("size", "1")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].name").value("Kamran"))
+                .andExpect(jsonPath("$.nextCursor").value("AAAAAAAAAAE"));
+
+        //Assert
+        verify(userService, times(1)).getUsersPage("AAAAAAAAAAA", 1);
+    }
+
+    @Test
+    void getUsersPage_WhenCursorInvalid_BadRequest() throws Exception {
+
+        //Arrange
+        when(userService.getUsersPage(any(), anyInt())).thenThrow(new InvalidCursor("Invalid cursor: x"));
+
+        //Act
+        mockMvc.perform(get(USER_PATH)
+                        .param("cursor", "x")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Invalid cursor: x"));
+    }
+
+    @Test
+    void searchUsers_Success() throws Exception {
+
+        //Arrange
+        var expected = UserSearchRequest.builder()
+                .name("Kam")
+                .minAge(20)
+                .maxAge(30)
+                .sort("age,desc")
+                .size(5)
+                .build();
+        var slice = new UserSliceResponse(List.of(new UserResponse("Kamran", "Babayev", 24)), 0, 5, false);
+        when(userService.search(expected)).thenReturn(slice);
+
+        //Act
+        mockMvc.perform(get(USER_PATH + "/search")
+                        .param("name", "Kam")
+                        .param("minAge", "20")
+                        .param("maxAge", "30")
+                        .param("sort", "age,desc")
+                        .param("size", "5")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].name").value("Kamran"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+
+        //Assert
+        verify(userService, times(1)).search(expected);
+    }
+
+    @Test
+    void searchUsers_WhenSizeTooLargeOrSortUnsupported_BadRequest() throws Exception {
+
+        //Arrange
+        when(userService.search(any())).thenThrow(new InvalidSearchRequest("Unsupported sort: password"));
+
+        //Act
+        mockMvc.perform(get(USER_PATH + "/search")
+                        .param("size", "1000")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.size").exists());
+        mockMvc.perform(get(USER_PATH + "/search")
+                        .param("sort", "password")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.title").value("Unsupported sort: password"));
+    }
+
+    @Test
+    void streamAllUsers_Success() throws Exception {
+
+        //Arrange
+        doAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            UserJsonWriter.write(generator, "Kamran", "Babayev", 24);
+            UserJsonWriter.write(generator, "Ali", "Valiyev", 26);
+            return null;
+        }).when(userService).streamAllUsers(any(JsonGenerator.class));
+
+        //Act
+        MvcResult result = mockMvc.perform(get(USER_PATH + "/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"name\":\"Kamran\",\"surname\":\"Babayev\",\"age\":24}\n"
+                        + "{\"name\":\"Ali\",\"surname\":\"Valiyev\",\"age\":26}"));
+    }
+
+    @Test
+    void streamAllUsers_WhenSmileAccepted_SmileSequence() throws Exception {
+        //Arrange
+        doAnswer(invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            UserJsonWriter.write(generator, "Kamran", "Babayev", 24);
+            UserJsonWriter.write(generator, "Ali", "Valiyev", 26);
+            return null;
+        }).when(userService).streamAllUsers(any(JsonGenerator.class));
+
+        //Act
+        MvcResult result = mockMvc.perform(get(USER_PATH + "/stream")
+                        .accept(WireFormat.SMILE_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //Assert
+        List<UserResponse> users = wireFormatMappers.get(WireFormat.SMILE)
+                .readerFor(UserResponse.class).<UserResponse>readValues(body).readAll();
+        assertThat(users).containsExactly(new UserResponse("Kamran", "Babayev", 24), new UserResponse("Ali", "Valiyev", 26));
+    }
+
+    @Test
+    void getChanges_Success() throws Exception {
+        //Arrange
+        var change = UserChangeResponse.builder()
+                .position(7L)
+                .userId(1L)
+                .type(UserChangeType.UPDATED)
+                .name("Kamran")
+                .surname("Babayev")
+                .age(25)
+                .version(2L)
+                .changedAt(Instant.parse("2024-01-01T00:00:00Z"))
+                .build();
+        when(userService.getChanges(6L, 50)).thenReturn(new UserChangePageResponse(List.of(change), 7L));
+
+        //Act
+        mockMvc.perform(get(USER_PATH + "/changes")
+                        .param("since", "6")
+                        .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].position").value(7))
+                .andExpect(jsonPath("$.changes[0].type").value("UPDATED"))
+                .andExpect(jsonPath("$.changes[0].changedAt").value("2024-01-01T00:00:00Z"))
+                .andExpect(jsonPath("$.next").value(7));
+
+        //Assert
+        verify(userService, times(1)).getChanges(6L, 50);
     }
 
     @Test
@@ -178,6 +595,7 @@ class UserControllerTest {
         expected.setName("Kamran");
         expected.setSurname("Babayev");
         expected.setAge(24);
+        expected.setVersion(3L);
 
         when(userService.getById(id)).thenReturn(expected);
 
@@ -187,12 +605,67 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.name").value("Kamran"))
                 .andExpect(jsonPath("$.surname").value("Babayev"))
                 .andExpect(jsonPath("$.age").value("24"))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
                 .andExpect(status().isOk());
 
         //Assert
         verify(userService, times(1)).getById(id);
     }
 
+    @Test
+    void getUser_WhenSmileAccepted_SmileBody() throws Exception {
+        //Arrange
+        var id = 1L;
+        when(userService.getById(id)).thenReturn(new UserResponse("Kamran", "Babayev", 24));
+
+        //Act
+        byte[] body = mockMvc.perform(get(USER_PATH + "/{id}", id)
+                        .accept(WireFormat.SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //Assert
+        assertThat(wireFormatMappers.get(WireFormat.SMILE).readValue(body, UserResponse.class))
+                .isEqualTo(new UserResponse("Kamran", "Babayev", 24));
+    }
+
+    @Test
+    void saveUser_WithCborBody_CborResponse() throws Exception {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 24);
+        when(userService.create(request)).thenReturn(new UserResponse("Kamran", "Babayev", 24));
+
+        //Act
+        byte[] body = mockMvc.perform(post(USER_PATH)
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(wireFormatMappers.get(WireFormat.CBOR).writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //Assert
+        assertThat(wireFormatMappers.get(WireFormat.CBOR).readValue(body, UserResponse.class))
+                .isEqualTo(new UserResponse("Kamran", "Babayev", 24));
+        verify(userService, times(1)).create(request);
+    }
+
+    @Test
+    void getUser_WhenMissing_NotFound() throws Exception {
+        //Arrange
+        var id = 42L;
+        when(userService.getById(id)).thenThrow(new UserNotFound(id));
+
+        //Act & Assert
+        mockMvc.perform(get(USER_PATH + "/{id}", id)
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(APPLICATION_JSON))
+                .andExpect(content().json("{\"title\":\"User not found with id: 42\",\"status\":\"Not Found\"}", true));
+    }
+
 
     @Test
     void updateUser_Success() throws Exception {
@@ -210,7 +683,7 @@ class UserControllerTest {
         expected.setSurname("Babayev");
         expected.setAge(24);
 
-        when(userService.updateUser(id, request)).thenReturn(expected);
+        when(userService.updateUser(id, request, null)).thenReturn(expected);
         //Act
         mockMvc.perform(put(USER_PATH + "/{id}", id)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -222,7 +695,64 @@ class UserControllerTest {
                 .andExpect(status().isOk());
 
         //Assert
-        verify(userService, times(1)).updateUser(id, request);
+        verify(userService, times(1)).updateUser(id, request, null);
+    }
+
+    @Test
+    void updateUser_WhenIfMatchGiven_ConditionalUpdate() throws Exception {
+        //Arrange
+        var id = 1L;
+        var request = new UserRequest("Kamran", "Babayev", 25);
+        when(userService.updateUser(id, request, 3L)).thenReturn(new UserResponse("Kamran", "Babayev", 25, 4L));
+
+        //Act
+        mockMvc.perform(put(USER_PATH + "/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content(objAsJson(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.age").value("25"));
+
+        //Assert
+        verify(userService, times(1)).updateUser(id, request, 3L);
+    }
+
+    @Test
+    void updateUser_WhenVersionStale_Conflict() throws Exception {
+        //Arrange
+        var id = 1L;
+        var request = new UserRequest("Kamran", "Babayev", 25);
+        when(userService.updateUser(id, request, 3L))
+                .thenThrow(new UserVersionConflict("User with id: 1 was modified concurrently", 5L));
+
+        //Act & Assert
+        mockMvc.perform(put(USER_PATH + "/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content(objAsJson(request)))
+                .andExpect(status().isConflict())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(jsonPath("$.title").value("User with id: 1 was modified concurrently"))
+                .andExpect(jsonPath("$.status").value("Conflict"));
+    }
+
+    @Test
+    void updateUser_WhenIfMatchWeak_ConflictWithoutUpdate() throws Exception {
+        //Arrange
+        var request = new UserRequest("Kamran", "Babayev", 25);
+
+        //Act
+        mockMvc.perform(put(USER_PATH + "/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                        .content(objAsJson(request)))
+                .andExpect(status().isConflict())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.status").value("Conflict"));
+
+        //Assert
+        verifyNoInteractions(userService);
     }
 
     @Test
@@ -244,4 +774,13 @@ class UserControllerTest {
     private String objAsJson(Object obj) throws JsonProcessingException {
         return objectMapper.writeValueAsString(obj);
     }
-}
\ No newline at end of file
+
+    private UserListSnapshot snapshot(List<UserResponse> users) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(users);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(json);
+        }
+        return new UserListSnapshot(1L, 0L, json, gzip.toByteArray(), "\"0abc\"", "\"0abc-gzip\"");
+    }
+}
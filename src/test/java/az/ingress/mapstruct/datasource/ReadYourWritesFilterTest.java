@@ -0,0 +1,78 @@
+package az.ingress.mapstruct.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesFilterTest {
+
+    private static final long NOW = 1_000_000L;
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5), () -> NOW);
+    private final AtomicBoolean primaryForced = new AtomicBoolean();
+    private final FilterChain chain = (request, response) -> primaryForced.set(DataSourceRouting.isPrimaryForced());
+
+    @Test
+    void givenWriteWhenFilteredThenPinnedAndCookieIssued() throws Exception {
+        //Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/user"), response, chain);
+
+        //Assert
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(primaryForced).isTrue();
+        assertThat(cookie.getValue()).isEqualTo(String.valueOf(NOW + 5000));
+        assertThat(cookie.getMaxAge()).isEqualTo(5);
+        assertThat(DataSourceRouting.isPrimaryForced()).isFalse();
+    }
+
+    @Test
+    void givenReadWithinWindowWhenFilteredThenPinnedToPrimary() throws Exception {
+        //Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(NOW + 1)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //Act
+        filter.doFilter(request, response, chain);
+
+        //Assert
+        assertThat(primaryForced).isTrue();
+        assertThat(response.getCookie(ReadYourWritesFilter.COOKIE)).isNull();
+    }
+
+    @Test
+    void givenReadAfterWindowWhenFilteredThenNotPinned() throws Exception {
+        //Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(NOW)));
+
+        //Act
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        //Assert
+        assertThat(primaryForced).isFalse();
+    }
+
+    @Test
+    void givenReadWithoutOrWithMalformedCookieWhenFilteredThenNotPinned() throws Exception {
+        //Arrange
+        MockHttpServletRequest malformed = new MockHttpServletRequest("GET", "/user/1");
+        malformed.setCookies(new Cookie(ReadYourWritesFilter.COOKIE, "later"));
+
+        //Act & Assert
+        filter.doFilter(new MockHttpServletRequest("GET", "/user/1"), new MockHttpServletResponse(), chain);
+        assertThat(primaryForced).isFalse();
+        filter.doFilter(malformed, new MockHttpServletResponse(), chain);
+        assertThat(primaryForced).isFalse();
+    }
+}
@@ -0,0 +1,221 @@
+package az.ingress.mapstruct.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaSet replicaSet;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica-1");
+        route(Map.of("replica-1", replica));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        replicaSet.close();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void givenHealthyReplicaWhenReadOnlyTransactionThenReplica() {
+        //Act
+        String site = readOnlySite();
+
+        //Assert
+        assertThat(site).isEqualTo("replica-1");
+    }
+
+    @Test
+    void givenReadWriteTransactionWhenQueriedThenPrimary() {
+        //Act
+        String site = readWrite.execute(status -> site());
+
+        //Assert
+        assertThat(site).isEqualTo("primary");
+    }
+
+    @Test
+    void givenNoTransactionWhenQueriedThenPrimary() {
+        //Act
+        String site = site();
+
+        //Assert
+        assertThat(site).isEqualTo("primary");
+    }
+
+    @Test
+    void givenReplicaBehindMaxLagWhenCheckedThenReadsFallBackToPrimary() {
+        //Arrange
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 2.5");
+
+        //Act
+        replicaSet.check();
+
+        //Assert
+        assertThat(readOnlySite()).isEqualTo("primary");
+    }
+
+    @Test
+    void givenLaggingReplicaWhenCaughtUpAndCheckedThenServesReadsAgain() {
+        //Arrange
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 2.5");
+        replicaSet.check();
+
+        //Act
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 0.2");
+        replicaSet.check();
+
+        //Assert
+        assertThat(readOnlySite()).isEqualTo("replica-1");
+    }
+
+    @Test
+    void givenFailingHealthCheckWhenCheckedThenReadsFallBackToPrimary() {
+        //Arrange
+        new JdbcTemplate(replica).execute("drop table replica_lag");
+
+        //Act
+        replicaSet.check();
+
+        //Assert
+        assertThat(readOnlySite()).isEqualTo("primary");
+    }
+
+    @Test
+    void givenSlowReplicaWhenReplicaSetCreatedThenStartsWithoutWaitingAndReadsPrimary() throws Exception {
+        //Arrange
+        CountDownLatch connecting = new CountDownLatch(1);
+        DataSource slowReplica = new DelegatingDataSource(replica) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                try {
+                    connecting.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getConnection();
+            }
+        };
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setLagQuery("select seconds from replica_lag");
+        replicaSet.close();
+
+        //Act
+        replicaSet = new ReplicaSet(Map.of("replica-1", replica), Map.of("replica-1", slowReplica), properties);
+
+        //Assert
+        assertThat(replicaSet.nextHealthy()).isNull();
+        connecting.countDown();
+        replicaSet.check();
+        assertThat(replicaSet.nextHealthy()).isEqualTo("replica-1");
+    }
+
+    @Test
+    void givenTwoHealthyReplicasWhenReadOnlyTransactionsThenRotated() {
+        //Arrange
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica);
+        replicas.put("replica-2", database("replica-2"));
+        route(replicas);
+
+        //Act
+        List<String> sites = List.of(readOnlySite(), readOnlySite(), readOnlySite());
+
+        //Assert
+        assertThat(sites).containsExactly("replica-1", "replica-2", "replica-1");
+    }
+
+    @Test
+    void givenPrimaryForcedWhenReadOnlyTransactionThenPrimary() {
+        //Act
+        String site = DataSourceRouting.onPrimary(this::readOnlySite);
+
+        //Assert
+        assertThat(site).isEqualTo("primary");
+        assertThat(DataSourceRouting.isPrimaryForced()).isFalse();
+    }
+
+    @Test
+    void givenPrimaryForcedWhenTaskPropagatedThenOtherThreadReadsPrimary() {
+        //Arrange
+        CompletableFuture<String> site = new CompletableFuture<>();
+        Runnable task;
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.forcePrimary()) {
+            task = DataSourceRouting.propagate(() -> site.complete(readOnlySite()));
+        }
+
+        //Act
+        new Thread(task).start();
+
+        //Assert
+        assertThat(site.join()).isEqualTo("primary");
+    }
+
+    private void route(Map<String, DataSource> replicas) {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setLagQuery("select seconds from replica_lag");
+        properties.setMaxLag(Duration.ofSeconds(1));
+        replicaSet = new ReplicaSet(replicas, properties);
+        replicaSet.check();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicaSet));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private String readOnlySite() {
+        return readOnly.execute(status -> site());
+    }
+
+    private String site() {
+        return jdbcTemplate.queryForObject("select name from site", String.class);
+    }
+
+    private EmbeddedDatabase database(String site) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("create table site (name varchar(32))");
+        jdbc.update("insert into site values (?)", site);
+        jdbc.execute("create table replica_lag (seconds double precision)");
+        jdbc.update("insert into replica_lag values (0)");
+        databases.add(database);
+        return database;
+    }
+}
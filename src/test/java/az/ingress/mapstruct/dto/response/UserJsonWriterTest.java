@@ -0,0 +1,47 @@
+package az.ingress.mapstruct.dto.response;
+
+import az.ingress.mapstruct.config.WireFormat;
+import az.ingress.mapstruct.config.WireFormatMappers;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserJsonWriterTest {
+
+    private static final WireFormatMappers MAPPERS = new WireFormatMappers(new ObjectMapper());
+
+    static Stream<Arguments> users() {
+        List<UserResponse> users = List.of(
+                new UserResponse("Kamran", "Babayev", 24),
+                new UserResponse("Əli \"Q\" \\ </script>\n", "Şükürov\u0001", 150, 7L),
+                new UserResponse(null, null, null));
+        return Stream.of(WireFormat.values())
+                .flatMap(format -> users.stream().map(user -> Arguments.of(format, user)));
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @MethodSource("users")
+    void givenUserWhenWrittenThenBytesMatchObjectMapper(WireFormat format, UserResponse user) throws IOException {
+        //Arrange
+        ObjectMapper mapper = MAPPERS.get(format);
+        byte[] expected = mapper.writeValueAsBytes(user);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //Act
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            UserJsonWriter.write(generator, user.getName(), user.getSurname(), user.getAge());
+        }
+
+        //Assert
+        assertThat(out.toByteArray()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,313 @@
+package az.ingress.mapstruct.embedded;
+
+import az.ingress.mapstruct.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddedUserStoreTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void givenWritesWithoutSnapshotWhenReopenedThenLogReplayed() throws IOException {
+        //Arrange
+        EmbeddedUserStore crashed = open(true);
+        User kamran = crashed.insert("Kamran", "Babayev", 24);
+        User kazim = crashed.insert("Kazım", null, null);
+        crashed.update(kamran.getId(), "Kamran", "Babayev", 25, 0L);
+        crashed.delete(kazim.getId());
+
+        //Act
+        EmbeddedUserStore reopened = open(true);
+
+        //Assert
+        assertThat(reopened.findAfter(0, 10)).containsExactly(new User(1L, "Kamran", "Babayev", 25, 1L));
+        assertThat(reopened.sequence()).isEqualTo(4);
+        assertThat(reopened.insert("Ali", "Valiyev", 30).getId()).isEqualTo(3L);
+    }
+
+    @Test
+    void givenSnapshotWhenReopenedThenTableAndSequenceRestored() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(false);
+        for (int i = 0; i < 1_000; i++) {
+            store.insert("Name" + i, "Surname" + i, i);
+        }
+        store.delete(1_000L);
+        store.snapshot();
+        store.update(1L, "Kamran", "Babayev", 24, null);
+        store.close();
+
+        //Act
+        EmbeddedUserStore reopened = open(false);
+
+        //Assert
+        assertThat(reopened.count()).isEqualTo(999);
+        assertThat(reopened.sequence()).isEqualTo(1_002);
+        assertThat(reopened.find(1L)).isEqualTo(new User(1L, "Kamran", "Babayev", 24, 1L));
+        assertThat(reopened.find(999L)).isEqualTo(new User(999L, "Name998", "Surname998", 998, 0L));
+        assertThat(reopened.insert("Ali", "Valiyev", 30).getId()).isEqualTo(1_001L);
+    }
+
+    @Test
+    void givenTornRecordAtTailWhenReopenedThenReplayStopsBeforeIt() throws IOException {
+        //Arrange
+        EmbeddedUserStore crashed = open(true);
+        crashed.insert("Kamran", "Babayev", 24);
+        crashed.insert("Kazim", "Ayxanov", 25);
+        crashed.insert("Ali", "Valiyev", 26);
+        corruptRecord(2);
+
+        //Act
+        EmbeddedUserStore reopened = open(true);
+
+        //Assert
+        assertThat(reopened.findAfter(0, 10)).extracting(User::getName).containsExactly("Kamran", "Kazim");
+        assertThat(reopened.insert("Rasim", "Aliyev", 27)).isEqualTo(new User(3L, "Rasim", "Aliyev", 27, 0L));
+        assertThat(open(true).find(3L).getName()).isEqualTo("Rasim");
+    }
+
+    @Test
+    void givenFillingLogWhenWrittenThenSnapshotTakenAndNothingLost() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(false, DataSize.ofKilobytes(4));
+
+        //Act
+        for (int i = 0; i < 500; i++) {
+            store.insert("Name" + i, "Surname" + i, i);
+        }
+
+        //Assert
+        assertThat(open(false, DataSize.ofKilobytes(4)).findAfter(495, 10))
+                .extracting(User::getSurname).containsExactly("Surname495", "Surname496", "Surname497", "Surname498", "Surname499");
+    }
+
+    @Test
+    void givenFullLogAndNoSnapshotYetWhenWrittenThenWriteFailsAndIsNotApplied() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(false, DataSize.ofKilobytes(4), task -> {
+        });
+        int logged = 0;
+        try {
+            while (true) {
+                store.insert("Name" + logged, "Surname" + logged, logged);
+                logged++;
+            }
+        } catch (TransientDataAccessResourceException full) {
+            // The log has no room left.
+        }
+
+        //Act & Assert
+        assertThatThrownBy(() -> store.update(1L, "Kamran", "Babayev", 24, null))
+                .isInstanceOf(TransientDataAccessResourceException.class);
+        assertThat(store.count()).isEqualTo(logged);
+        assertThat(store.find(1L).getName()).isEqualTo("Name0");
+        assertThat(open(false, DataSize.ofKilobytes(4)).count()).isEqualTo(logged);
+    }
+
+    @Test
+    void givenRolledBackTransactionWhenReadThenWritesUndoneAndStayUndoneAfterRestart() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(true);
+        User kept = store.insert("Kamran", "Babayev", 24);
+        TransactionTemplate transaction = new TransactionTemplate(new EmbeddedTransactionManager());
+
+        //Act
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> {
+            store.insert("Rolled", "Back", 1);
+            store.update(kept.getId(), "Kazim", "Ayxanov", 25, null);
+            store.delete(kept.getId());
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+        transaction.executeWithoutResult(status -> store.insert("Ali", "Valiyev", 26));
+
+        //Assert
+        assertThat(store.findAfter(0, 10)).containsExactly(kept, new User(3L, "Ali", "Valiyev", 26, 0L));
+        assertThat(open(true).findAfter(0, 10)).containsExactly(kept, new User(3L, "Ali", "Valiyev", 26, 0L));
+    }
+
+    @Test
+    void givenOpenTransactionWhenReadFromAnotherThreadThenOnlyCommittedRowSeen() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(true);
+        User kept = store.insert("Kamran", "Babayev", 24);
+        TransactionTemplate transaction = new TransactionTemplate(new EmbeddedTransactionManager());
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+
+        //Act
+        List<User> seenDuringTransaction;
+        User seenAfterCommit;
+        try {
+            seenDuringTransaction = transaction.execute(status -> {
+                store.update(kept.getId(), "Kazim", "Ayxanov", 25, 0L);
+                return List.of(store.find(kept.getId()), on(reader, () -> store.find(kept.getId())));
+            });
+            seenAfterCommit = on(reader, () -> store.find(kept.getId()));
+        } finally {
+            reader.shutdownNow();
+        }
+
+        //Assert
+        User updated = new User(1L, "Kazim", "Ayxanov", 25, 1L);
+        assertThat(seenDuringTransaction).containsExactly(updated, kept);
+        assertThat(seenAfterCommit).isEqualTo(updated);
+    }
+
+    @Test
+    void givenRowWrittenByOpenTransactionWhenWrittenElsewhereThenWaitsAndChecksCommittedVersion() throws Exception {
+        //Arrange
+        EmbeddedUserStore store = open(true);
+        User kept = store.insert("Kamran", "Babayev", 24);
+        TransactionTemplate transaction = new TransactionTemplate(new EmbeddedTransactionManager());
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        //Act
+        Future<User> stale;
+        try {
+            stale = transaction.execute(status -> {
+                store.update(kept.getId(), "Kazim", "Ayxanov", 25, null);
+                Future<User> waiting = writer.submit(() -> store.update(kept.getId(), "Ali", "Valiyev", 26, 0L));
+                assertThatThrownBy(() -> waiting.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+                return waiting;
+            });
+
+            //Assert
+            assertThat(stale.get(5, TimeUnit.SECONDS)).isNull();
+        } finally {
+            writer.shutdownNow();
+        }
+        assertThat(store.find(kept.getId())).isEqualTo(new User(1L, "Kazim", "Ayxanov", 25, 1L));
+    }
+
+    @Test
+    void givenRowHeldPastLockTimeoutWhenWrittenThenWriteFails() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(true);
+        User kept = store.insert("Kamran", "Babayev", 24);
+        TransactionTemplate transaction = new TransactionTemplate(new EmbeddedTransactionManager());
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        //Act & Assert
+        try {
+            transaction.executeWithoutResult(status -> {
+                store.delete(kept.getId());
+                assertThatThrownBy(() -> on(writer, () -> store.update(kept.getId(), "Ali", "Valiyev", 26, null)))
+                        .hasRootCauseInstanceOf(CannotAcquireLockException.class);
+            });
+        } finally {
+            writer.shutdownNow();
+        }
+        assertThat(store.find(kept.getId())).isNull();
+    }
+
+    @Test
+    void givenTransactionCutShortWhenReopenedThenNoneOfItsWritesReplayed() throws IOException {
+        //Arrange
+        EmbeddedUserStore crashed = open(true);
+        crashed.insert("Kamran", "Babayev", 24);
+        new TransactionTemplate(new EmbeddedTransactionManager()).executeWithoutResult(status -> {
+            crashed.insert("Kazim", "Ayxanov", 25);
+            crashed.insert("Ali", "Valiyev", 26);
+        });
+        corruptRecord(2);
+
+        //Act
+        EmbeddedUserStore reopened = open(true);
+
+        //Assert
+        assertThat(reopened.findAfter(0, 10)).extracting(User::getName).containsExactly("Kamran");
+        assertThat(reopened.sequence()).isEqualTo(1);
+    }
+
+    @Test
+    void givenManyOverwritesWhenTableCompactedThenLatestValuesKept() throws IOException {
+        //Arrange
+        EmbeddedUserStore store = open(false);
+        for (int i = 0; i < 100; i++) {
+            store.insert("Name" + i, "Surname" + i, i);
+        }
+
+        //Act
+        for (int round = 0; round < 50; round++) {
+            for (long id = 1; id <= 100; id++) {
+                store.update(id, "Name" + id + "-" + round, "Surname", round, null);
+            }
+        }
+        store.delete(50L);
+
+        //Assert
+        assertThat(store.count()).isEqualTo(100 - 1);
+        assertThat(store.find(100L)).isEqualTo(new User(100L, "Name100-49", "Surname", 49, 50L));
+        assertThat(store.search("Name10".getBytes(), null, 49, 49, null, 0, 10))
+                .extracting(User::getId).containsExactly(10L, 100L);
+    }
+
+    private EmbeddedUserStore open(boolean offHeap) throws IOException {
+        return open(offHeap, DataSize.ofMegabytes(1));
+    }
+
+    /**
+     * Takes the snapshots a filling log asks for on the writing thread, so tests see them at once.
+     */
+    private EmbeddedUserStore open(boolean offHeap, DataSize logSize) throws IOException {
+        return open(offHeap, logSize, Runnable::run);
+    }
+
+    private EmbeddedUserStore open(boolean offHeap, DataSize logSize, Executor snapshotExecutor) throws IOException {
+        EmbeddedProperties properties = new EmbeddedProperties();
+        properties.setDataDir(dataDir);
+        properties.setLogSize(logSize);
+        properties.setOffHeap(offHeap);
+        properties.setLockTimeout(Duration.ofSeconds(1));
+        return new EmbeddedUserStore(properties, snapshotExecutor);
+    }
+
+    private static <T> T on(ExecutorService thread, Callable<T> task) {
+        try {
+            return thread.submit(task).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Flips a payload byte of the record at {@code index}, as a write cut short by a crash would leave it.
+     */
+    private void corruptRecord(int index) throws IOException {
+        try (FileChannel log = FileChannel.open(dataDir.resolve(EmbeddedUserStore.LOG_FILE),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.BIG_ENDIAN);
+            long offset = 16;
+            for (int i = 0; i < index; i++) {
+                length.clear();
+                log.read(length, offset);
+                offset += 8 + length.flip().getInt();
+            }
+            log.write(ByteBuffer.wrap(new byte[]{0x7f}), offset + 8 + 20);
+        }
+    }
+}
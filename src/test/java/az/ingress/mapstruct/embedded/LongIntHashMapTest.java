@@ -0,0 +1,79 @@
+package az.ingress.mapstruct.embedded;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongIntHashMapTest {
+
+    @Test
+    void givenRandomPutsAndRemovesWhenComparedWithHashMapThenSameContents() {
+        //Arrange
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        //Act
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed == null ? LongIntHashMap.MISSING : removed);
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        //Assert
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, LongIntHashMap.MISSING));
+        }
+    }
+
+    @Test
+    void givenSequentialIdsBeyondCapacityWhenPutThenAllFound() {
+        //Arrange
+        LongIntHashMap map = new LongIntHashMap(0);
+
+        //Act
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i + 1L, i);
+        }
+
+        //Assert
+        assertThat(map.size()).isEqualTo(100_000);
+        assertThat(map.get(1L)).isZero();
+        assertThat(map.get(100_000L)).isEqualTo(99_999);
+        assertThat(map.get(100_001L)).isEqualTo(LongIntHashMap.MISSING);
+    }
+
+    @Test
+    void givenClearedMapWhenGetThenMissing() {
+        //Arrange
+        LongIntHashMap map = new LongIntHashMap(16);
+        map.put(7L, 1);
+
+        //Act
+        map.clear(16);
+
+        //Assert
+        assertThat(map.size()).isZero();
+        assertThat(map.get(7L)).isEqualTo(LongIntHashMap.MISSING);
+    }
+
+    @Test
+    void givenZeroKeyWhenPutThenRejected() {
+        //Arrange
+        LongIntHashMap map = new LongIntHashMap(16);
+
+        //Act & Assert
+        assertThatThrownBy(() -> map.put(0L, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package az.ingress.mapstruct.error;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorBodiesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ErrorBodies errorBodies = new ErrorBodies(objectMapper);
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 7, 42, -1, Long.MAX_VALUE, Long.MIN_VALUE})
+    void givenIdWhenNotFoundBodyBuiltThenIdenticalToJackson(long id) throws Exception {
+        //Arrange
+        byte[] expected = objectMapper.writeValueAsBytes(ExceptionResponse.builder()
+                .title("User not found with id: " + id)
+                .status(HttpStatus.NOT_FOUND.getReasonPhrase())
+                .build());
+
+        //Act
+        byte[] body = errorBodies.userNotFound(id);
+
+        //Assert
+        assertThat(body).isEqualTo(expected);
+    }
+
+    @Test
+    void givenSameTitleWhenConstantBodyRequestedTwiceThenSerializedOnce() throws Exception {
+        //Arrange
+        byte[] expected = objectMapper.writeValueAsBytes(ExceptionResponse.builder()
+                .title("User was modified concurrently")
+                .status(HttpStatus.CONFLICT.getReasonPhrase())
+                .build());
+
+        //Act
+        byte[] first = errorBodies.constant(HttpStatus.CONFLICT, "User was modified concurrently");
+        byte[] second = errorBodies.constant(HttpStatus.CONFLICT, "User was modified concurrently");
+
+        //Assert
+        assertThat(first).isEqualTo(expected).isSameAs(second);
+    }
+
+    @Test
+    void givenSameTitleWhenRequestedForAnotherStatusThenStatusDiffers() {
+        //Act
+        byte[] throttled = errorBodies.constant(HttpStatus.TOO_MANY_REQUESTS, "Busy");
+        byte[] overloaded = errorBodies.constant(HttpStatus.SERVICE_UNAVAILABLE, "Busy");
+
+        //Assert
+        assertThat(new String(throttled)).contains("\"Too Many Requests\"");
+        assertThat(new String(overloaded)).contains("\"Service Unavailable\"");
+    }
+}
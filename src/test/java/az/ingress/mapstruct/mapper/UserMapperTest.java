@@ -5,6 +5,7 @@ import az.ingress.mapstruct.dto.response.UserResponse;
 import az.ingress.mapstruct.model.User;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
@@ -15,6 +16,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 @ExtendWith(MockitoExtension.class)
 class UserMapperTest {
 
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
     @Test
     void toEntityTest() {
         //Arrange
@@ -29,7 +32,7 @@ class UserMapperTest {
         expected.setAge(24);
 
         //Act
-        var actual = UserMapper.INSTANCE.mapUserRequestToUserEntity(request);
+        var actual = userMapper.mapUserRequestToUserEntity(request);
 
         //Assert
         assertThat(actual.getId()).isEqualTo(expected.getId());
@@ -53,7 +56,7 @@ class UserMapperTest {
         expected.setAge(24);
 
         //Act
-        var actual = UserMapper.INSTANCE.mapEntityToUserResponse(request);
+        var actual = userMapper.mapEntityToUserResponse(request);
 
         //Assert
         assertThat(actual.getName()).isEqualTo(expected.getName());
@@ -80,7 +83,7 @@ class UserMapperTest {
         userResponses.add(expected);
 
         //Act
-        var actual = UserMapper.INSTANCE.mapEntityListToUserResponseList(users);
+        var actual = userMapper.mapEntityListToUserResponseList(users);
 
         //Assert
         assertThat(actual.size()).isEqualTo(userResponses.size());
@@ -89,4 +92,5 @@ class UserMapperTest {
         assertThat(actual.get(0).getAge()).isEqualTo(userResponses.get(0).getAge());
         assertThat(actual).containsExactlyInAnyOrderElementsOf(userResponses);
     }
-}
\ No newline at end of file
+
+}
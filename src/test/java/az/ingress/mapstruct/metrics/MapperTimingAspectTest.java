@@ -0,0 +1,36 @@
+package az.ingress.mapstruct.metrics;
+
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.mapper.UserMapperImpl;
+import az.ingress.mapstruct.model.User;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapperTimingAspectTest {
+
+    @Test
+    void givenRepeatedCallsWhenTimedThenOneTimerPerMethod() {
+        //Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new UserMapperImpl());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new MapperTimingAspect(meterRegistry));
+        UserMapper userMapper = factory.getProxy();
+        User user = new User(1L, "Kamran", "Babayev", 24, 0L);
+
+        //Act
+        UserResponse response = userMapper.mapEntityToUserResponse(user);
+        userMapper.mapEntityToUserResponse(user);
+
+        //Assert
+        assertThat(response.getName()).isEqualTo("Kamran");
+        Timer timer = meterRegistry.get(MapperTimingAspect.METRIC_NAME).tag("method", "mapEntityToUserResponse").timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(meterRegistry.get(MapperTimingAspect.METRIC_NAME).timers()).hasSize(1);
+    }
+}
@@ -0,0 +1,80 @@
+package az.ingress.mapstruct.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatementMetricsFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SqlStatementMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new SqlStatementMetricsFilter(meterRegistry);
+    }
+
+    @Test
+    void givenStatementsDuringRequestWhenFilteredThenCountRecordedPerRoute() throws Exception {
+        //Arrange
+        SqlStatementCounter.increment();
+
+        //Act
+        for (int i = 0; i < 2; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/user/1"), new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/user/{id}");
+                SqlStatementCounter.increment();
+                SqlStatementCounter.increment();
+            });
+        }
+        SqlStatementCounter.increment();
+
+        //Assert
+        DistributionSummary summary = summary("GET", "/user/{id}");
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    void givenStatementsOnExecutorThreadWhenPropagatedThenCountedForRequest() throws Exception {
+        //Arrange
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //Act
+        try {
+            filter.doFilter(new MockHttpServletRequest("GET", "/user/stream"), new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/user/stream");
+                try {
+                    executor.submit(SqlStatementCounter.propagate(SqlStatementCounter::increment)).get(5, TimeUnit.SECONDS);
+                    executor.submit(SqlStatementCounter::increment).get(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //Assert
+        assertThat(summary("GET", "/user/stream").totalAmount()).isEqualTo(1);
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+        return meterRegistry.get(SqlStatementMetricsFilter.METRIC_NAME)
+                .tag("method", method)
+                .tag("uri", uri)
+                .summary();
+    }
+}
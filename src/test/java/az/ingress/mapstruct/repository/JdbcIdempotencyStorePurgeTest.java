@@ -0,0 +1,88 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.config.FlywayConfig;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.service.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Purges outside a test transaction, on connections with auto-commit off as the perf profile
+ * configures them, so a delete that is never committed shows up.
+ */
+@JdbcTest(properties = "spring.datasource.hikari.auto-commit=false")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class JdbcIdempotencyStorePurgeTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcIdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        idempotencyStore = new JdbcIdempotencyStore(jdbcTemplate, transactionManager, Duration.ofHours(1));
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("delete from idempotency_keys"));
+    }
+
+    @Test
+    void givenAutoCommitOffWhenExpiredKeysPurgedThenDeleteCommitted() {
+        //Arrange
+        transactionTemplate.executeWithoutResult(status -> {
+            idempotencyStore.save("expired", record("Kamran"));
+            idempotencyStore.save("live", record("Kazim"));
+            jdbcTemplate.update("update idempotency_keys set created_at = created_at - interval '2 hours' "
+                    + "where idempotency_key = 'expired'");
+        });
+
+        //Act
+        idempotencyStore.purgeExpired();
+
+        //Assert
+        List<String> remaining = transactionTemplate.execute(status ->
+                jdbcTemplate.queryForList("select idempotency_key from idempotency_keys", String.class));
+        assertThat(remaining).containsExactly("live");
+    }
+
+    private static IdempotencyRecord record(String name) {
+        return new IdempotencyRecord("fingerprint", new UserResponse(name, "Babayev", 24, 0L));
+    }
+}
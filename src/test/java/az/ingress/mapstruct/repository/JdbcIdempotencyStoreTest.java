@@ -0,0 +1,100 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.config.FlywayConfig;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.service.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class JdbcIdempotencyStoreTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcIdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new JdbcIdempotencyStore(jdbcTemplate, transactionManager, Duration.ofHours(1));
+    }
+
+    @Test
+    void givenSavedKeyWhenFoundThenResponseRestored() {
+        //Arrange
+        idempotencyStore.save("key-1", record("Kamran", 24));
+
+        //Act
+        IdempotencyRecord found = idempotencyStore.find("key-1").orElseThrow();
+
+        //Assert
+        assertThat(found.getFingerprint()).isEqualTo("fingerprint");
+        assertThat(found.getResponse()).isEqualTo(new UserResponse("Kamran", "Babayev", 24, 0L));
+    }
+
+    @Test
+    void givenLiveKeyWhenSavedAgainThenDuplicate() {
+        //Arrange
+        idempotencyStore.save("key-1", record("Kamran", 24));
+
+        //Act & Assert
+        assertThatThrownBy(() -> idempotencyStore.save("key-1", record("Kazim", 25)))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(idempotencyStore.find("key-1").orElseThrow().getResponse().getName()).isEqualTo("Kamran");
+    }
+
+    @Test
+    void givenExpiredKeyWhenSavedAgainThenTakenOverAndPurgeSkipsIt() {
+        //Arrange
+        idempotencyStore.save("key-1", record("Kamran", 24));
+        idempotencyStore.save("key-2", record("Ali", 30));
+        jdbcTemplate.update("update idempotency_keys set created_at = created_at - interval '2 hours'");
+
+        //Act
+        boolean expiredFound = idempotencyStore.find("key-1").isPresent();
+        idempotencyStore.save("key-1", record("Kazim", 25));
+        idempotencyStore.purgeExpired();
+
+        //Assert
+        assertThat(expiredFound).isFalse();
+        assertThat(idempotencyStore.find("key-1").orElseThrow().getResponse().getName()).isEqualTo("Kazim");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from idempotency_keys", Integer.class)).isEqualTo(1);
+    }
+
+    private static IdempotencyRecord record(String name, int age) {
+        return new IdempotencyRecord("fingerprint", new UserResponse(name, "Babayev", age, 0L));
+    }
+}
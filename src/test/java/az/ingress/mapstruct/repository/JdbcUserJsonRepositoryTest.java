@@ -0,0 +1,69 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.config.FlywayConfig;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class JdbcUserJsonRepositoryTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void givenUsersWhenWriteAllThenSameJsonAsResponseListInIdOrder() throws IOException {
+        //Arrange
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("insert into users (id, name, surname, age) values (2, 'Əli \"Q\"', 'Şükürov', 30), "
+                + "(1, 'Kamran', 'Babayev', 24)");
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //Act
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            new JdbcUserJsonRepository(dataSource).writeAll(generator);
+            generator.writeEndArray();
+        }
+
+        //Assert
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(List.of(
+                new UserResponse("Kamran", "Babayev", 24),
+                new UserResponse("Əli \"Q\"", "Şükürov", 30))));
+    }
+}
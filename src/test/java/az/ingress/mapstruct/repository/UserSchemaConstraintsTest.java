@@ -0,0 +1,87 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.config.FlywayConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that the constraints from the migrations reject the rows {@code UserRequest} validation
+ * rejects, so writes that bypass the API cannot store them either.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class UserSchemaConstraintsTest {
+
+    private static final String INSERT = "insert into users (id, name, surname, age) values (nextval('users_seq'), ?, ?, ?)";
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> invalidUsers() {
+        return Stream.of(
+                Arguments.of(null, "Babayev", 24),
+                Arguments.of(" ", "Babayev", 24),
+                Arguments.of("Kamran", null, 24),
+                Arguments.of("Kamran", "", 24),
+                Arguments.of("Kamran", "Babayev", 9),
+                Arguments.of("Kamran", "Babayev", null));
+    }
+
+    @ParameterizedTest
+    @MethodSource("invalidUsers")
+    void givenInvalidUserWhenInsertedThenRejected(String name, String surname, Integer age) {
+        //Act & Assert
+        assertThatThrownBy(() -> jdbcTemplate.update(INSERT, name, surname, age))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void givenValidUserWhenInsertedThenStored() {
+        //Act
+        int inserted = jdbcTemplate.update(INSERT, "Kamran", "Babayev", 10);
+
+        //Assert
+        assertThat(inserted).isEqualTo(1);
+    }
+
+    @Test
+    void givenMigrationsWhenAppliedThenConstraintsValidated() {
+        //Act
+        Integer notValidated = jdbcTemplate.queryForObject(
+                "select count(*) from pg_constraint where conrelid = 'users'::regclass and contype = 'c' and not convalidated",
+                Integer.class);
+
+        //Assert
+        assertThat(notValidated).isZero();
+    }
+}
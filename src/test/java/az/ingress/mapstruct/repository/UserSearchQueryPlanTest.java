@@ -0,0 +1,129 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.config.FlywayConfig;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every search shape against a seeded Postgres and fails when the planner falls back
+ * to a sequential scan of {@code users} or stops using the search indexes from the migrations.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "az.ingress.mapstruct.repository.UserSearchQueryPlanTest$CapturingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FlywayConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class UserSearchQueryPlanTest {
+
+    private static final int ROWS = 50_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("insert into users (id, name, surname, age) "
+                + "select nextval('users_seq'), 'Name' || g, 'Surname' || (g * 7 % " + ROWS + "), 10 + g % 80 "
+                + "from generate_series(1, " + ROWS + ") g");
+        jdbcTemplate.execute("analyze users");
+    }
+
+    static Stream<Arguments> searches() {
+        return Stream.of(
+                Arguments.of("name prefix", "Name1234", null, null, null, Sort.unsorted()),
+                Arguments.of("surname prefix", null, "Surname4321", null, null, Sort.unsorted()),
+                Arguments.of("age range sorted by age", null, null, 30, 35, Sort.by("age")),
+                Arguments.of("name prefix sorted by age", "Name4242", null, null, null, Sort.by(Sort.Direction.DESC, "age")),
+                Arguments.of("name prefix and age range", "Name99", null, 20, 40, Sort.by("surname")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    void givenSeededTableWhenSearchThenPlanAvoidsSequentialScan(String description, String name, String surname,
+                                                                 Integer minAge, Integer maxAge, Sort sort) {
+        //Arrange
+        List<Object> args = new ArrayList<>();
+        if (name != null) {
+            args.add(name + "%");
+        }
+        if (surname != null) {
+            args.add(surname + "%");
+        }
+        if (minAge != null) {
+            args.add(minAge);
+        }
+        if (maxAge != null) {
+            args.add(maxAge);
+        }
+        CapturingStatementInspector.clear();
+
+        //Act
+        userRepository.search(name, surname, minAge, maxAge, PageRequest.of(0, PAGE_SIZE, sort));
+        String sql = CapturingStatementInspector.last();
+        long placeholders = sql.chars().filter(c -> c == '?').count();
+        while (args.size() < placeholders) {
+            args.add(PAGE_SIZE + 1);
+        }
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, args.toArray()));
+
+        //Assert
+        assertThat(plan).as("plan for %s:%n%s", sql, plan)
+                .doesNotContain("Seq Scan on users")
+                .containsPattern("users_(name_prefix|surname_prefix|age)_idx");
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        private static volatile String last;
+
+        static void clear() {
+            last = null;
+        }
+
+        static String last() {
+            return last;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.contains("from users")) {
+                last = sql;
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package az.ingress.mapstruct.repository;
+
+import az.ingress.mapstruct.config.FlywayConfig;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the migrations the way an existing database meets them: a users table created before
+ * Flyway, baselined at version 1 so V1 and its sequence are skipped.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class UserSequenceMigrationTest {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop schema public cascade");
+        jdbcTemplate.execute("create schema public");
+        jdbcTemplate.execute("create table users (id bigint not null primary key, name varchar(255), surname varchar(255), age integer)");
+        jdbcTemplate.update("insert into users (id, name, surname, age) values (1, 'Kamran', 'Babayev', 24), (7000, 'Ali', 'Valiyev', 26)");
+    }
+
+    @Test
+    void givenPopulatedLegacyTableWhenMigratedThenSequenceAllocatesAboveExistingIds() {
+        //Act
+        migrate();
+
+        //Assert
+        Long next = jdbcTemplate.queryForObject("select nextval('users_seq')", Long.class);
+        assertThat(next - ALLOCATION_SIZE + 1).isGreaterThan(7000L);
+        assertThat(jdbcTemplate.update("insert into users (id, name, surname, age) values (?, 'Kazim', 'Ayxanov', 25)", next))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void givenSequenceAheadOfTableWhenMigratedThenSequenceNotMovedBack() {
+        //Arrange
+        jdbcTemplate.execute("create sequence users_seq start with 1 increment by 50");
+        jdbcTemplate.queryForObject("select setval('users_seq', 100000)", Long.class);
+
+        //Act
+        migrate();
+
+        //Assert
+        assertThat(jdbcTemplate.queryForObject("select nextval('users_seq')", Long.class)).isEqualTo(100050L);
+    }
+
+    private void migrate() {
+        FluentConfiguration configuration = Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+        new FlywayConfig().sessionLevelMigrationLock().customize(configuration);
+        configuration.load().migrate();
+    }
+}
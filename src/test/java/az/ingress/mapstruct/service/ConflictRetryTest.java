@@ -0,0 +1,74 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConflictRetryTest {
+
+    private final ConflictRetry conflictRetry = new ConflictRetry(4, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    void givenTransientConflictsWhenExecuteThenRetriedUntilSuccess() {
+        //Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        //Act
+        String result = conflictRetry.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("User", 1L);
+            }
+            return "done";
+        });
+
+        //Assert
+        assertThat(result).isEqualTo("done");
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void givenPersistentConflictWhenExecuteThenGivesUpAfterMaxAttempts() {
+        //Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        //Act & Assert
+        assertThatThrownBy(() -> conflictRetry.execute(() -> {
+            calls.incrementAndGet();
+            throw new UserVersionConflict("conflict", 2L);
+        })).isInstanceOf(UserVersionConflict.class);
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void givenNonConflictFailureWhenExecuteThenNotRetried() {
+        //Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        //Act & Assert
+        assertThatThrownBy(() -> conflictRetry.execute(() -> {
+            calls.incrementAndGet();
+            throw new UserNotFound(1L);
+        })).isInstanceOf(UserNotFound.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void givenLateAttemptWhenDelayComputedThenCappedByMaxDelay() {
+        //Arrange
+        long max = TimeUnit.MILLISECONDS.toNanos(5);
+
+        //Act & Assert
+        for (int attempt = 1; attempt <= 64; attempt++) {
+            assertThat(conflictRetry.delayNanos(attempt)).isBetween(0L, max);
+        }
+        assertThat(conflictRetry.delayNanos(1)).isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,238 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.config.CacheConfig;
+import az.ingress.mapstruct.dto.request.UserBatchUpdateRequest;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.BatchItemError;
+import az.ingress.mapstruct.dto.response.BatchItemResponse;
+import az.ingress.mapstruct.dto.response.BatchItemStatus;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBatchServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserListSnapshotService userListSnapshotService;
+
+    @Mock
+    private UserChangeOutbox userChangeOutbox;
+
+    private CacheManager cacheManager;
+
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.USERS_CACHE);
+        userBatchService = new UserBatchService(userRepository,
+                Mappers.getMapper(UserMapper.class),
+                new TransactionTemplate(transactionManager),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                cacheManager,
+                userListSnapshotService,
+                new ConflictRetry(3, Duration.ofMillis(1), Duration.ofMillis(2)),
+                userChangeOutbox);
+    }
+
+    @Test
+    void givenValidAndInvalidRequestsWhenCreateAllThenPerItemResults() {
+        //Arrange
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        }).when(userRepository).saveAll(anyList());
+        List<UserRequest> requests = List.of(
+                new UserRequest("Kamran", "Babayev", 24),
+                new UserRequest("", "Babayev", 24),
+                new UserRequest("Ali", "Valiyev", 9));
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.createAll(requests);
+
+        //Assert
+        assertThat(results).extracting(BatchItemResponse::getStatus)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.INVALID, BatchItemStatus.INVALID);
+        assertThat(results.get(0).getId()).isEqualTo(1L);
+        assertThat(results.get(0).getUser().getName()).isEqualTo("Kamran");
+        assertThat(results.get(1).getValidationErrors()).containsEntry("name", "Name can not be empty");
+        assertThat(results.get(2).getValidationErrors()).containsKey("age");
+        verify(userRepository, times(1)).saveAll(List.of(new User(1L, "Kamran", "Babayev", 24, null)));
+        verify(userRepository, times(1)).flush();
+        verify(userChangeOutbox, times(1)).created(1L, results.get(0).getUser());
+        verify(userListSnapshotService, times(1)).invalidate();
+    }
+
+    @Test
+    void givenMoreRequestsThanChunkSizeWhenCreateAllThenFlushedPerChunk() {
+        //Arrange
+        List<UserRequest> requests = new ArrayList<>();
+        for (int i = 0; i < UserBatchService.CHUNK_SIZE * 2 + 1; i++) {
+            requests.add(new UserRequest("Name" + i, "Surname" + i, 20));
+        }
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.createAll(requests);
+
+        //Assert
+        assertThat(results).hasSize(requests.size())
+                .allMatch(result -> result.getStatus() == BatchItemStatus.CREATED);
+        verify(transactionManager, times(3)).commit(any());
+        verify(userRepository, times(3)).flush();
+        verify(userRepository, times(3)).saveAll(anyList());
+    }
+
+    @Test
+    void givenFailingChunkWhenCreateAllThenItemsMarkedFailedWithoutDatabaseMessage() {
+        //Arrange
+        doThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint")).when(userRepository).flush();
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.createAll(List.of(new UserRequest("Kamran", "Babayev", 24)));
+
+        //Assert
+        assertThat(results.get(0).getStatus()).isEqualTo(BatchItemStatus.FAILED);
+        assertThat(results.get(0).getError()).isEqualTo(BatchItemError.CONSTRAINT_VIOLATION);
+    }
+
+    @Test
+    void givenOneViolatingRowWhenCreateAllThenOnlyThatRowFailed() {
+        //Arrange
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getName().equals("Bad"))) {
+                throw new DataIntegrityViolationException("check constraint violated");
+            }
+            users.forEach(user -> user.setId(ids.incrementAndGet()));
+            return users;
+        }).when(userRepository).saveAll(anyList());
+        List<UserRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(new UserRequest(i == 5 ? "Bad" : "Name" + i, "Surname" + i, 20));
+        }
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.createAll(requests);
+
+        //Assert
+        assertThat(results).extracting(BatchItemResponse::getStatus).containsExactly(
+                BatchItemStatus.CREATED, BatchItemStatus.CREATED, BatchItemStatus.CREATED, BatchItemStatus.CREATED,
+                BatchItemStatus.CREATED, BatchItemStatus.FAILED, BatchItemStatus.CREATED, BatchItemStatus.CREATED);
+        assertThat(results.get(5).getError()).isEqualTo(BatchItemError.CONSTRAINT_VIOLATION);
+        assertThat(ids.get()).isEqualTo(7);
+    }
+
+    @Test
+    void givenUnavailableDatabaseWhenCreateAllThenChunkFailedOnce() {
+        //Arrange
+        doThrow(new DataAccessResourceFailureException("connection refused")).when(userRepository).saveAll(anyList());
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.createAll(List.of(
+                new UserRequest("Kamran", "Babayev", 24), new UserRequest("Kazim", "Ayxanov", 25)));
+
+        //Assert
+        assertThat(results).extracting(BatchItemResponse::getError)
+                .containsOnly(BatchItemError.WRITE_FAILED);
+        verify(userRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void givenExistingAndMissingUsersWhenUpdateAllThenPerItemResults() {
+        //Arrange
+        User existing = User.builder().id(1L).name("Anar").surname("Zeynalov").age(24).build();
+        when(userRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(existing));
+        cacheManager.getCache(CacheConfig.USERS_CACHE).put(1L, "stale");
+        List<UserBatchUpdateRequest> requests = List.of(
+                new UserBatchUpdateRequest(1L, "Kazim", "Ayxanov", 25),
+                new UserBatchUpdateRequest(2L, "Ali", "Valiyev", 26),
+                new UserBatchUpdateRequest(null, "Ali", "Valiyev", 26));
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.updateAll(requests);
+
+        //Assert
+        assertThat(results).extracting(BatchItemResponse::getStatus)
+                .containsExactly(BatchItemStatus.UPDATED, BatchItemStatus.NOT_FOUND, BatchItemStatus.INVALID);
+        assertThat(existing.getName()).isEqualTo("Kazim");
+        assertThat(existing.getAge()).isEqualTo(25);
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(1L)).isNull();
+        verify(userChangeOutbox, times(1)).updated(eq(1L), any(UserResponse.class));
+        verify(userRepository, times(1)).saveAll(List.of(existing));
+        verify(userRepository, times(2)).flush();
+    }
+
+    @Test
+    void givenConcurrentUpdateWhenUpdateAllThenChunkRetried() {
+        //Arrange
+        when(userRepository.findAllById(Set.of(1L)))
+                .thenReturn(List.of(User.builder().id(1L).name("Anar").surname("Zeynalov").age(24).version(1L).build()))
+                .thenReturn(List.of(User.builder().id(1L).name("Anar").surname("Zeynalov").age(30).version(2L).build()));
+        doThrow(new ObjectOptimisticLockingFailureException(User.class, 1L))
+                .doNothing()
+                .when(userRepository).flush();
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.updateAll(List.of(new UserBatchUpdateRequest(1L, "Kazim", "Ayxanov", 25)));
+
+        //Assert
+        assertThat(results.get(0).getStatus()).isEqualTo(BatchItemStatus.UPDATED);
+        assertThat(results.get(0).getUser().getAge()).isEqualTo(25);
+        verify(userRepository, times(2)).findAllById(Set.of(1L));
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void givenExistingAndMissingIdsWhenDeleteAllThenStatusFromDeletedRows() {
+        //Arrange
+        when(userRepository.deleteUsersById(Set.of(1L, 2L))).thenReturn(List.of(1L));
+
+        //Act
+        List<BatchItemResponse> results = userBatchService.deleteAll(List.of(1L, 2L));
+
+        //Assert
+        assertThat(results).extracting(BatchItemResponse::getStatus)
+                .containsExactly(BatchItemStatus.DELETED, BatchItemStatus.NOT_FOUND);
+        verify(userRepository, times(1)).deleteUsersById(Set.of(1L, 2L));
+        verifyNoMoreInteractions(userRepository);
+        verify(userChangeOutbox, times(1)).deleted(1L);
+        verifyNoMoreInteractions(userChangeOutbox);
+    }
+}
@@ -0,0 +1,158 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserChangePageResponse;
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.error.UserVersionConflict;
+import az.ingress.mapstruct.model.UserChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs user mutations against a real Postgres and checks that their outbox events reach the
+ * sink exactly in feed order, and only once their transaction committed. Connections have
+ * auto-commit off, as in the perf profile.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.outbox.sink=capturing",
+        "app.outbox.relay-interval=PT24H",
+        "spring.datasource.hikari.auto-commit=false"})
+@Testcontainers(disabledWithoutDocker = true)
+class UserChangeRelayTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        CapturingSink capturingSink() {
+            return new CapturingSink();
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserChangeRelay userChangeRelay;
+
+    @Autowired
+    private CapturingSink sink;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        userChangeRelay.relay();
+        sink.published.clear();
+    }
+
+    @Test
+    void givenUserMutationsWhenRelayedThenPublishedInFeedOrder() {
+        //Arrange
+        long since = userService.getChanges(0, 1000).getNext();
+        userService.create(new UserRequest("Kamran", "Babayev", 24));
+        Long id = jdbcTemplate.queryForObject("select max(id) from users", Long.class);
+        userService.updateUser(id, new UserRequest("Kamran", "Babayev", 25), 0L);
+        assertThatThrownBy(() -> userService.updateUser(id, new UserRequest("Kamran", "Babayev", 26), 0L))
+                .isInstanceOf(UserVersionConflict.class);
+        userService.deleteUserById(id);
+
+        //Act
+        boolean visibleBeforeRelay = !userService.getChanges(since, 10).getChanges().isEmpty();
+        userChangeRelay.relay();
+        UserChangePageResponse feed = userService.getChanges(since, 10);
+
+        //Assert
+        assertThat(visibleBeforeRelay).isFalse();
+        assertThat(sink.published).extracting(UserChangeResponse::getType)
+                .containsExactly(UserChangeType.CREATED, UserChangeType.UPDATED, UserChangeType.DELETED);
+        assertThat(sink.published).extracting(UserChangeResponse::getUserId).containsOnly(id);
+        assertThat(sink.published.get(1).getAge()).isEqualTo(25);
+        assertThat(sink.published.get(1).getVersion()).isEqualTo(1L);
+        assertThat(sink.published).extracting(UserChangeResponse::getPosition).isSorted().doesNotHaveDuplicates();
+        assertThat(feed.getChanges()).isEqualTo(sink.published);
+        assertThat(feed.getNext()).isEqualTo(sink.published.get(2).getPosition());
+        assertThat(userService.getChanges(feed.getNext(), 10).getChanges()).isEmpty();
+    }
+
+    @Test
+    void givenFailingSinkWhenRelayedThenChangesRetriedOnNextRun() {
+        //Arrange
+        userService.create(new UserRequest("Ali", "Valiyev", 30));
+        sink.failNext.set(true);
+
+        //Act
+        assertThatThrownBy(() -> userChangeRelay.relay()).isInstanceOf(IllegalStateException.class);
+        Integer pendingAfterFailure = jdbcTemplate.queryForObject(
+                "select count(*) from user_changes where feed_position is null", Integer.class);
+        userChangeRelay.relay();
+
+        //Assert
+        assertThat(pendingAfterFailure).isEqualTo(1);
+        assertThat(sink.published).hasSize(1);
+        assertThat(sink.published.get(0).getName()).isEqualTo("Ali");
+    }
+
+    @Test
+    void givenChangesPublishedBeforeRetentionWhenPurgedThenDeleteCommitted() {
+        //Arrange
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        userService.create(new UserRequest("Rasim", "Aliyev", 27));
+        userChangeRelay.relay();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "update user_changes set published_at = published_at - interval '30 days' where name = 'Rasim'"));
+
+        //Act
+        userChangeRelay.purgePublished();
+
+        //Assert
+        Integer remaining = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(
+                "select count(*) from user_changes where name = 'Rasim'", Integer.class));
+        assertThat(remaining).isZero();
+    }
+
+    static class CapturingSink implements UserChangeSink {
+        final List<UserChangeResponse> published = new ArrayList<>();
+        final AtomicBoolean failNext = new AtomicBoolean();
+
+        @Override
+        public void publish(List<UserChangeResponse> changes) {
+            if (failNext.getAndSet(false)) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            published.addAll(changes);
+        }
+    }
+}
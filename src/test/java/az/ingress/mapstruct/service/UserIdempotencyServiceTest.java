@@ -0,0 +1,163 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.error.IdempotencyKeyReused;
+import az.ingress.mapstruct.error.InvalidIdempotencyKey;
+import az.ingress.mapstruct.mapper.UserMapper;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdempotencyServiceTest {
+
+    private static final UserRequest REQUEST = new UserRequest("Kamran", "Babayev", 24);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserListSnapshotService userListSnapshotService;
+
+    @Mock
+    private UserChangeOutbox userChangeOutbox;
+
+    private InMemoryIdempotencyStore idempotencyStore;
+
+    private UserIdempotencyService userIdempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = new InMemoryIdempotencyStore(100, Duration.ofHours(1));
+        userIdempotencyService = service(idempotencyStore);
+    }
+
+    @Test
+    void givenStoredKeyWhenCreateThenStoredResponseReplayedWithoutRepository() {
+        //Arrange
+        UserResponse stored = new UserResponse("Kamran", "Babayev", 24, 0L);
+        idempotencyStore.save("key-1", new IdempotencyRecord(UserIdempotencyService.fingerprint(REQUEST), stored));
+
+        //Act
+        UserResponse response = userIdempotencyService.create("key-1", REQUEST);
+
+        //Assert
+        assertThat(response).isEqualTo(stored);
+        verifyNoInteractions(userRepository, userListSnapshotService);
+    }
+
+    @Test
+    void givenNewKeyWhenCreatedTwiceThenInsertedOnce() {
+        //Arrange
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //Act
+        UserResponse first = userIdempotencyService.create("key-1", REQUEST);
+        UserResponse second = userIdempotencyService.create("key-1", REQUEST);
+
+        //Assert
+        assertThat(second).isEqualTo(first);
+        assertThat(first.getName()).isEqualTo("Kamran");
+        verify(userRepository, times(1)).save(any(User.class));
+        verify(userChangeOutbox, times(1)).created(any(), eq(first));
+        verify(userListSnapshotService, times(1)).invalidate();
+    }
+
+    @Test
+    void givenKeyUsedWithOtherRequestWhenCreateThenRejected() {
+        //Arrange
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        userIdempotencyService.create("key-1", REQUEST);
+
+        //Act & Assert
+        assertThatThrownBy(() -> userIdempotencyService.create("key-1", new UserRequest("Kamran", "Babayev", 25)))
+                .isInstanceOf(IdempotencyKeyReused.class)
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        verify(userRepository, times(1)).save(any(User.class));
+    }
+
+    @Test
+    void givenCreateInFlightWhenSameKeyArrivesThenWaitsForFirst() throws Exception {
+        //Arrange
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            saving.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //Act
+        Future<UserResponse> first = executor.submit(() -> userIdempotencyService.create("key-1", REQUEST));
+        assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<UserResponse> second = executor.submit(() -> userIdempotencyService.create("key-1", REQUEST));
+        Thread.sleep(100);
+        boolean secondDoneBeforeRelease = second.isDone();
+        release.countDown();
+
+        //Assert
+        assertThat(secondDoneBeforeRelease).isFalse();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        verify(userRepository, times(1)).save(any(User.class));
+        executor.shutdown();
+    }
+
+    @Test
+    void givenKeyCommittedByOtherInstanceWhenSaveConflictsThenTheirResponseReturned() {
+        //Arrange
+        IdempotencyStore sharedStore = mock(IdempotencyStore.class);
+        UserResponse theirs = new UserResponse("Kamran", "Babayev", 24, 0L);
+        when(sharedStore.find("key-1")).thenReturn(Optional.empty(),
+                Optional.of(new IdempotencyRecord(UserIdempotencyService.fingerprint(REQUEST), theirs)));
+        doThrow(new DuplicateKeyException("key-1")).when(sharedStore).save(eq("key-1"), any(IdempotencyRecord.class));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //Act
+        UserResponse response = service(sharedStore).create("key-1", REQUEST);
+
+        //Assert
+        assertThat(response).isSameAs(theirs);
+        verifyNoInteractions(userListSnapshotService);
+    }
+
+    @Test
+    void givenOversizedKeyWhenCreateThenRejected() {
+        //Act & Assert
+        assertThatThrownBy(() -> userIdempotencyService.create("k".repeat(256), REQUEST))
+                .isInstanceOf(InvalidIdempotencyKey.class)
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    private UserIdempotencyService service(IdempotencyStore store) {
+        return new UserIdempotencyService(userRepository, Mappers.getMapper(UserMapper.class), store,
+                new TransactionTemplate(transactionManager), userListSnapshotService, userChangeOutbox);
+    }
+}
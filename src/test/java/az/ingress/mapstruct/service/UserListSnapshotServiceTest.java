@@ -0,0 +1,154 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.response.UserJsonWriter;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import az.ingress.mapstruct.repository.UserJsonRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserListSnapshotServiceTest {
+
+    @Mock
+    private UserJsonRepository userJsonRepository;
+
+    @Mock
+    private UserChangeRepository userChangeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserListSnapshotService userListSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        userListSnapshotService = new UserListSnapshotService(userJsonRepository, userChangeRepository, new ObjectMapper(),
+                transactionManager, Duration.ofHours(1));
+    }
+
+    @Test
+    void givenNoWritesWhenCurrentCalledTwiceThenSingleQuery() {
+        //Arrange
+        doAnswer(rows(new UserResponse("Kamran", "Babayev", 24))).when(userJsonRepository).writeAll(any());
+
+        //Act
+        UserListSnapshot first = userListSnapshotService.current();
+        UserListSnapshot second = userListSnapshotService.current();
+
+        //Assert
+        assertThat(second).isSameAs(first);
+        assertThat(new String(first.getJson())).isEqualTo("[{\"name\":\"Kamran\",\"surname\":\"Babayev\",\"age\":24}]");
+        verify(userJsonRepository, times(1)).writeAll(any());
+    }
+
+    @Test
+    void givenInvalidatedSnapshotWhenCurrentThenRebuiltWithNewEtag() {
+        //Arrange
+        doAnswer(rows(new UserResponse("Kamran", "Babayev", 24)))
+                .doAnswer(rows(new UserResponse("Kazim", "Ayxanov", 25)))
+                .when(userJsonRepository).writeAll(any());
+        UserListSnapshot before = userListSnapshotService.current();
+
+        //Act
+        userListSnapshotService.invalidate();
+        UserListSnapshot after = userListSnapshotService.current();
+
+        //Assert
+        assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+        assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+        assertThat(after.getGzipEtag()).isNotEqualTo(after.getEtag());
+        verify(userJsonRepository, times(2)).writeAll(any());
+    }
+
+    @Test
+    void givenUnchangedContentWhenRebuiltThenSameEtag() {
+        //Arrange
+        doAnswer(rows(new UserResponse("Kamran", "Babayev", 24))).when(userJsonRepository).writeAll(any());
+        UserListSnapshot before = userListSnapshotService.current();
+
+        //Act
+        userListSnapshotService.invalidate();
+        UserListSnapshot after = userListSnapshotService.current();
+
+        //Assert
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getEtag()).isEqualTo(before.getEtag());
+    }
+
+    @Test
+    void givenChangeFromAnotherInstanceWhenRecheckDueThenRebuilt() {
+        //Arrange
+        userListSnapshotService = new UserListSnapshotService(userJsonRepository, userChangeRepository, new ObjectMapper(),
+                transactionManager, Duration.ZERO);
+        when(userChangeRepository.findLastPosition()).thenReturn(3L, 3L, 4L, 4L);
+        doAnswer(rows(new UserResponse("Kamran", "Babayev", 24)))
+                .doAnswer(rows(new UserResponse("Kazim", "Ayxanov", 25)))
+                .when(userJsonRepository).writeAll(any());
+        UserListSnapshot before = userListSnapshotService.current();
+
+        //Act
+        UserListSnapshot unchanged = userListSnapshotService.current();
+        UserListSnapshot after = userListSnapshotService.current();
+
+        //Assert
+        assertThat(unchanged).isSameAs(before);
+        assertThat(after.getFeedPosition()).isEqualTo(4L);
+        assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+        verify(userJsonRepository, times(2)).writeAll(any());
+    }
+
+    @Test
+    void givenRecheckIntervalNotElapsedWhenCurrentThenFeedNotRead() {
+        //Arrange
+        doAnswer(rows(new UserResponse("Kamran", "Babayev", 24))).when(userJsonRepository).writeAll(any());
+        userListSnapshotService.current();
+
+        //Act
+        userListSnapshotService.current();
+        userListSnapshotService.current();
+
+        //Assert
+        verify(userChangeRepository, times(1)).findLastPosition();
+    }
+
+    @Test
+    void givenSnapshotWhenGzipDecompressedThenMatchesJson() throws IOException {
+        //Arrange
+        doAnswer(rows(new UserResponse("Kamran", "Babayev", 24))).when(userJsonRepository).writeAll(any());
+
+        //Act
+        UserListSnapshot snapshot = userListSnapshotService.current();
+
+        //Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(snapshot.getJson());
+        }
+    }
+
+    private static Answer<Void> rows(UserResponse... users) {
+        return invocation -> {
+            JsonGenerator generator = invocation.getArgument(0);
+            for (UserResponse user : users) {
+                UserJsonWriter.write(generator, user.getName(), user.getSurname(), user.getAge());
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.config.CacheConfig;
+import az.ingress.mapstruct.dto.projection.UserView;
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.mapper.UserMapperImpl;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import az.ingress.mapstruct.repository.UserJsonRepository;
+import az.ingress.mapstruct.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class UserServiceCacheTest {
+
+    @Configuration
+    @Import({CacheConfig.class, UserService.class, UserMapperImpl.class})
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.USERS_CACHE);
+            cacheManager.setCaffeine(Caffeine.newBuilder().maximumSize(100).recordStats());
+            return cacheManager;
+        }
+
+        @Bean
+        ConflictRetry conflictRetry() {
+            return new ConflictRetry(3, Duration.ofMillis(1), Duration.ofMillis(2));
+        }
+
+        @Bean
+        CommitHookTransactionManager transactionManager() {
+            return new CommitHookTransactionManager();
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(CommitHookTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+    }
+
+    /**
+     * Runs a one-shot hook while committing, after the service method returned and before the
+     * commit completes, so a test can interleave a concurrent read there.
+     */
+    static class CommitHookTransactionManager extends AbstractPlatformTransactionManager {
+
+        private volatile Runnable onCommit;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            Runnable hook = onCommit;
+            onCommit = null;
+            if (hook != null) {
+                hook.run();
+            }
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CommitHookTransactionManager transactionManager;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserListSnapshotService userListSnapshotService;
+
+    @MockBean
+    private UserChangeOutbox userChangeOutbox;
+
+    @MockBean
+    private UserChangeRepository userChangeRepository;
+
+    @MockBean
+    private UserJsonRepository userJsonRepository;
+
+    private UserResponse mockResponse;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+        transactionManager.onCommit = null;
+        mockResponse = new UserResponse("Kamran", "Babayev", 24);
+    }
+
+    @Test
+    void givenCachedUserWhenGetByIdThenRepositoryHitOnce() {
+        //Arrange
+        when(userRepository.findResponseById(1L)).thenReturn(Optional.of(mockResponse));
+
+        //Act
+        UserResponse first = userService.getById(1L);
+        UserResponse second = userService.getById(1L);
+
+        //Assert
+        assertThat(second).isEqualTo(first);
+        verify(userRepository, times(1)).findResponseById(1L);
+    }
+
+    @Test
+    void givenCachedUserWhenUpdateUserThenCacheRefreshed() {
+        //Arrange
+        when(userRepository.findResponseById(1L)).thenReturn(Optional.of(mockResponse));
+        when(userRepository.updateUser(1L, "Kazim", "Ayxanov", 25)).thenReturn(Optional.of(updatedView()));
+        userService.getById(1L);
+        UserRequest request = UserRequest.builder()
+                .name("Kazim")
+                .surname("Ayxanov")
+                .age(25)
+                .build();
+
+        //Act
+        userService.updateUser(1L, request, null);
+        UserResponse cached = userService.getById(1L);
+
+        //Assert
+        assertThat(cached.getName()).isEqualTo("Kazim");
+        verify(userRepository, times(1)).findResponseById(1L);
+    }
+
+    @Test
+    void givenCachedUserWhenDeleteUserThenCacheEvicted() {
+        //Arrange
+        when(userRepository.findResponseById(1L)).thenReturn(Optional.of(mockResponse));
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
+        userService.getById(1L);
+
+        //Act
+        userService.deleteUserById(1L);
+
+        //Assert
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(1L)).isNull();
+    }
+
+    @Test
+    void givenReadDuringDeleteCommitWhenDeleteUserThenDeletedRowNotCached() throws Exception {
+        //Arrange
+        when(userRepository.findResponseById(1L)).thenReturn(Optional.of(mockResponse));
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
+        userService.getById(1L);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        List<UserResponse> readDuringCommit = new ArrayList<>();
+
+        //Act
+        try {
+            transactionManager.onCommit = () -> readDuringCommit.add(readOn(reader));
+            userService.deleteUserById(1L);
+        } finally {
+            reader.shutdownNow();
+        }
+
+        //Assert
+        assertThat(readDuringCommit).containsExactly(mockResponse);
+        assertThat(cacheManager.getCache(CacheConfig.USERS_CACHE).get(1L)).isNull();
+    }
+
+    @Test
+    void givenReadDuringUpdateCommitWhenCommitFailsThenCommittedRowStaysCached() throws Exception {
+        //Arrange
+        when(userRepository.findResponseById(1L)).thenReturn(Optional.of(mockResponse));
+        when(userRepository.updateUser(1L, "Kazim", "Ayxanov", 25)).thenReturn(Optional.of(updatedView()));
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        List<UserResponse> readDuringCommit = new ArrayList<>();
+
+        //Act
+        try {
+            transactionManager.onCommit = () -> {
+                readDuringCommit.add(readOn(reader));
+                throw new TransactionSystemException("commit failed");
+            };
+            assertThatThrownBy(() -> userService.updateUser(1L, new UserRequest("Kazim", "Ayxanov", 25), null))
+                    .isInstanceOf(TransactionSystemException.class);
+        } finally {
+            reader.shutdownNow();
+        }
+
+        //Assert
+        assertThat(readDuringCommit).containsExactly(mockResponse);
+        assertThat(userService.getById(1L)).isEqualTo(mockResponse);
+    }
+
+    @Test
+    void givenConcurrentMissesWhenGetByIdThenSingleLoad() throws Exception {
+        //Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findResponseById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(mockResponse);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //Act
+        List<Future<UserResponse>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> userService.getById(1L)));
+            }
+            loading.await(5, TimeUnit.SECONDS);
+            release.countDown();
+            for (Future<UserResponse> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getName()).isEqualTo("Kamran");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //Assert
+        verify(userRepository, times(1)).findResponseById(1L);
+    }
+
+    private UserResponse readOn(ExecutorService reader) {
+        try {
+            return reader.submit(() -> userService.getById(1L)).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static UserView updatedView() {
+        return new UserView() {
+            @Override
+            public String getName() {
+                return "Kazim";
+            }
+
+            @Override
+            public String getSurname() {
+                return "Ayxanov";
+            }
+
+            @Override
+            public Integer getAge() {
+                return 25;
+            }
+
+            @Override
+            public Long getVersion() {
+                return 1L;
+            }
+        };
+    }
+}
@@ -1,19 +1,41 @@
 package az.ingress.mapstruct.service;
 
+import az.ingress.mapstruct.dto.projection.UserView;
 import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.request.UserSearchRequest;
+import az.ingress.mapstruct.dto.response.UserChangePageResponse;
+import az.ingress.mapstruct.dto.response.UserChangeResponse;
+import az.ingress.mapstruct.dto.response.UserPageResponse;
 import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.dto.response.UserSliceResponse;
+import az.ingress.mapstruct.error.InvalidCursor;
+import az.ingress.mapstruct.error.InvalidSearchRequest;
 import az.ingress.mapstruct.error.UserNotFound;
+import az.ingress.mapstruct.error.UserVersionConflict;
 import az.ingress.mapstruct.mapper.UserMapper;
 import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.model.UserChangeType;
+import az.ingress.mapstruct.repository.UserChangeRepository;
+import az.ingress.mapstruct.repository.UserJsonRepository;
 import az.ingress.mapstruct.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,11 +54,38 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @Mock
+    private UserListSnapshotService userListSnapshotService;
+
+    @Spy
+    private ConflictRetry conflictRetry = new ConflictRetry(3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private UserChangeOutbox userChangeOutbox;
+
+    @Mock
+    private UserChangeRepository userChangeRepository;
+
+    @Mock
+    private UserJsonRepository userJsonRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
 
     private User mockUser;
 
     @BeforeEach
     void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
         mockUser = User.builder()
                 .id(1L)
                 .name("Kamran")
@@ -54,7 +103,7 @@ class UserServiceTest {
                 .surname("Valiyev")
                 .age(26)
                 .build();
-        User userEntity = UserMapper.INSTANCE.mapUserRequestToUserEntity(userRequest);
+        User userEntity = userMapper.mapUserRequestToUserEntity(userRequest);
         User saved = User.builder()
                 .id(2L)
                 .name("Ali")
@@ -77,14 +126,16 @@ class UserServiceTest {
         assertThat(captor.getValue().getName()).isEqualTo("Ali");
         assertThat(captor.getValue().getSurname()).isEqualTo("Valiyev");
         assertThat(captor.getValue().getAge()).isEqualTo(26);
+        verify(userChangeOutbox, times(1)).created(2L, response);
+        verify(userListSnapshotService, times(1)).invalidate();
     }
 
     @Test
     void givenValidIdWhenGetUserThenSuccess() {
         //Arrange
         Long id = 1L;
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(mockUser));
-        UserResponse userResponse = UserMapper.INSTANCE.mapEntityToUserResponse(mockUser);
+        UserResponse userResponse = userMapper.mapEntityToUserResponse(mockUser);
+        when(userRepository.findResponseById(anyLong())).thenReturn(Optional.of(userResponse));
 
         //Act
         UserResponse response = userService.getById(id);
@@ -93,29 +144,30 @@ class UserServiceTest {
         assertThat(response.getName()).isEqualTo("Kamran");
         assertThat(response.getSurname()).isEqualTo("Babayev");
         assertThat(response.getAge()).isEqualTo(24);
-        verify(userRepository, times(1)).findById(id);
+        verify(userRepository, times(1)).findResponseById(id);
+        verify(userRepository, never()).findById(anyLong());
     }
 
     @Test
     void givenInvalidWhenGetUserThenNotFound() {
         //Arrange
         long id = 1L;
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.findResponseById(id)).thenReturn(Optional.empty());
 
         //Act & assert
         assertThatThrownBy(() -> userService.getById(id))
                 .isInstanceOf(UserNotFound.class)
-                .hasMessage("User not found with id: " + id);
+                .hasMessage("User not found with id: " + id)
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
     }
 
     @Test
     void givenValidUsersWhenGetAllUsersThenSuccess() {
         // Arrange
-        List<User> users = new ArrayList<>();
-        users.add(User.builder().id(1L).name("Araz").surname("Mammadov").age(25).build());
-        users.add(User.builder().id(2L).name("Anar").surname("Eliyev").age(26).build());
-        List<UserResponse> userResponses = UserMapper.INSTANCE.mapEntityListToUserResponseList(users);
-        when(userRepository.findAll()).thenReturn(users);
+        List<UserResponse> userResponses = List.of(
+                new UserResponse("Araz", "Mammadov", 25),
+                new UserResponse("Anar", "Eliyev", 26));
+        when(userRepository.findAllResponses()).thenReturn(userResponses);
 
         // Act
         List<UserResponse> allAccounts = userService.getAllUsers();
@@ -123,105 +175,320 @@ class UserServiceTest {
         // Assert
         assertThat(allAccounts).hasSize(2);
         assertThat(allAccounts).containsExactlyInAnyOrderElementsOf(userResponses);
-        verify(userRepository, times(1)).findAll();
+        verify(userRepository, times(1)).findAllResponses();
+        verify(userRepository, never()).findAll();
+        verifyNoInteractions(userMapper);
     }
 
     @Test
     void givenNoUsersWhenGetAllUsersThenEmptyList() {
         // Arrange
-        List<User> accounts = Collections.emptyList();
-        List<UserResponse> collect = Collections.emptyList();
-        when(userRepository.findAll()).thenReturn(accounts);
+        when(userRepository.findAllResponses()).thenReturn(Collections.emptyList());
 
         // Act
         List<UserResponse> allAccounts = userService.getAllUsers();
 
         // Assert
         assertThat(allAccounts).isEmpty();
-        verify(userRepository, times(1)).findAll();
+        verify(userRepository, times(1)).findAllResponses();
+    }
+
+    @Test
+    void givenMoreUsersThanPageSizeWhenGetUsersPageThenNextCursorReturned() {
+        // Arrange
+        List<User> users = new ArrayList<>();
+        users.add(User.builder().id(1L).name("Araz").surname("Mammadov").age(25).build());
+        users.add(User.builder().id(2L).name("Anar").surname("Eliyev").age(26).build());
+        users.add(User.builder().id(3L).name("Kamran").surname("Babayev").age(24).build());
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 3))).thenReturn(users);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(2L, PageRequest.of(0, 3))).thenReturn(users.subList(2, 3));
+
+        // Act
+        UserPageResponse first = userService.getUsersPage(null, 2);
+        UserPageResponse second = userService.getUsersPage(first.getNextCursor(), 2);
+
+        // Assert
+        assertThat(first.getUsers()).extracting(UserResponse::getName).containsExactly("Araz", "Anar");
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getUsers()).extracting(UserResponse::getName).containsExactly("Kamran");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void givenPageSizeAboveLimitWhenGetUsersPageThenSizeIsBounded() {
+        // Arrange
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 101))).thenReturn(Collections.emptyList());
+
+        // Act
+        UserPageResponse page = userService.getUsersPage(null, 1_000_000);
+
+        // Assert
+        assertThat(page.getUsers()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        verify(userRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 101));
+    }
+
+    @Test
+    void givenFiltersAndSortWhenSearchThenSliceOfMatchingUsers() {
+        //Arrange
+        UserSearchRequest request = UserSearchRequest.builder()
+                .name("Kam")
+                .minAge(20)
+                .maxAge(30)
+                .sort("age,desc")
+                .page(1)
+                .size(10)
+                .build();
+        PageRequest pageable = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "age"));
+        when(userRepository.search("Kam", null, 20, 30, pageable))
+                .thenReturn(new SliceImpl<>(List.of(mockUser), pageable, true));
+
+        //Act
+        UserSliceResponse slice = userService.search(request);
+
+        //Assert
+        assertThat(slice.getUsers()).extracting(UserResponse::getName).containsExactly("Kamran");
+        assertThat(slice.getPage()).isEqualTo(1);
+        assertThat(slice.getSize()).isEqualTo(10);
+        assertThat(slice.isHasNext()).isTrue();
+    }
+
+    @Test
+    void givenUnsupportedSortOrInvertedAgeRangeWhenSearchThenInvalidSearchRequest() {
+        //Act & assert
+        assertThatThrownBy(() -> userService.search(UserSearchRequest.builder().sort("password").build()))
+                .isInstanceOf(InvalidSearchRequest.class)
+                .hasMessage("Unsupported sort: password")
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        assertThatThrownBy(() -> userService.search(UserSearchRequest.builder().minAge(40).maxAge(30).build()))
+                .isInstanceOf(InvalidSearchRequest.class)
+                .hasMessage("minAge must not be greater than maxAge")
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void givenMalformedCursorWhenGetUsersPageThenInvalidCursor() {
+        //Act & assert
+        assertThatThrownBy(() -> userService.getUsersPage("not-a-cursor", 20))
+                .isInstanceOf(InvalidCursor.class)
+                .hasMessage("Invalid cursor: not-a-cursor")
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void givenGeneratorWhenStreamAllUsersThenRowsWrittenByJsonRepository() {
+        // Arrange
+        JsonGenerator generator = mock(JsonGenerator.class);
+
+        // Act
+        userService.streamAllUsers(generator);
+
+        // Assert
+        verify(userJsonRepository, times(1)).writeAll(generator);
+        verifyNoInteractions(userRepository, userMapper);
     }
 
     @Test
     void givenValidUserWhenUpdateUserThenSuccess() {
         // Arrange
         Long id = 1L;
-        User accountFromDb = User.builder()
-                .id(1L)
-                .name("Anar")
-                .surname("Zeynalov")
-                .age(24)
-                .build();
         UserRequest accountRequest = UserRequest.builder()
                 .name("Kazim")
                 .surname("Ayxanov")
                 .age(25)
                 .build();
-        when(userRepository.findById(id)).thenReturn(Optional.of(accountFromDb));
-        accountFromDb.setName(accountRequest.getName());
-        accountFromDb.setSurname(accountRequest.getSurname());
-        accountFromDb.setAge(accountRequest.getAge());
-        when(userRepository.save(any(User.class))).thenReturn(accountFromDb);
-        UserResponse userResponse = UserMapper.INSTANCE.mapEntityToUserResponse(accountFromDb);
+        when(userRepository.updateUser(id, "Kazim", "Ayxanov", 25))
+                .thenReturn(Optional.of(userView("Kazim", "Ayxanov", 25, 1L)));
+
         // Act
-        UserResponse response = userService.updateUser(id, accountRequest);
+        UserResponse response = userService.updateUser(id, accountRequest, null);
 
         // Assert
         assertThat(response.getName()).isEqualTo("Kazim");
         assertThat(response.getSurname()).isEqualTo("Ayxanov");
         assertThat(response.getAge()).isEqualTo(25);
-        assertThat(accountFromDb.getId()).isEqualTo(id);
-        verify(userRepository, times(1)).findById(id);
-        verify(userRepository, times(1)).save(accountFromDb);
+        assertThat(response.getVersion()).isEqualTo(1L);
+        verify(userRepository, times(1)).updateUser(id, "Kazim", "Ayxanov", 25);
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userChangeOutbox, times(1)).updated(id, response);
+        verify(userListSnapshotService, times(1)).invalidate();
     }
 
     @Test
     void givenInvalidUserWhenUpdateUserThenNotFound() {
         // Arrange
         Long id = 1L;
-        User accountFromDb = User.builder()
-                .id(1L)
-                .name("Anar")
-                .surname("Zeynalov")
-                .age(24)
-                .build();
         UserRequest accountRequest = UserRequest.builder()
                 .name("Kazim")
                 .surname("Ayxanov")
                 .age(25)
                 .build();
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.updateUser(id, "Kazim", "Ayxanov", 25)).thenReturn(Optional.empty());
 
         //Act & assert
-        assertThatThrownBy(() -> userService.updateUser(id, accountRequest))
+        assertThatThrownBy(() -> userService.updateUser(id, accountRequest, null))
                 .isInstanceOf(UserNotFound.class)
                 .hasMessage("User not found with id: " + id);
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void givenMatchingVersionWhenUpdateUserThenConditionalUpdate() {
+        // Arrange
+        Long id = 1L;
+        UserRequest request = new UserRequest("Kazim", "Ayxanov", 25);
+        when(userRepository.updateUserIfVersion(id, "Kazim", "Ayxanov", 25, 3L))
+                .thenReturn(Optional.of(userView("Kazim", "Ayxanov", 25, 4L)));
+
+        // Act
+        UserResponse response = userService.updateUser(id, request, 3L);
+
+        // Assert
+        assertThat(response.getVersion()).isEqualTo(4L);
+        verify(userRepository, never()).updateUser(anyLong(), any(), any(), any());
+        verify(userListSnapshotService, times(1)).invalidate();
+    }
+
+    @Test
+    void givenStaleVersionWhenUpdateUserThenConflictWithCurrentVersion() {
+        // Arrange
+        Long id = 1L;
+        UserRequest request = new UserRequest("Kazim", "Ayxanov", 25);
+        when(userRepository.updateUserIfVersion(id, "Kazim", "Ayxanov", 25, 3L)).thenReturn(Optional.empty());
+        when(userRepository.findVersionById(id)).thenReturn(Optional.of(5L));
+
+        //Act & assert
+        assertThatThrownBy(() -> userService.updateUser(id, request, 3L))
+                .isInstanceOf(UserVersionConflict.class)
+                .extracting("currentVersion").isEqualTo(5L);
+        verify(userListSnapshotService, never()).invalidate();
+    }
+
+    @Test
+    void givenConcurrentWriterWhenModifyUserThenRetriedOnFreshState() {
+        // Arrange
+        Long id = 1L;
+        when(userRepository.findResponseById(id))
+                .thenReturn(Optional.of(new UserResponse("Kamran", "Babayev", 24, 1L)))
+                .thenReturn(Optional.of(new UserResponse("Kamran", "Babayev", 30, 2L)));
+        when(userRepository.updateUserIfVersion(id, "Kamran", "Babayev", 25, 1L)).thenReturn(Optional.empty());
+        when(userRepository.findVersionById(id)).thenReturn(Optional.of(2L));
+        when(userRepository.updateUserIfVersion(id, "Kamran", "Babayev", 31, 2L))
+                .thenReturn(Optional.of(userView("Kamran", "Babayev", 31, 3L)));
+
+        // Act
+        UserResponse response = userService.modifyUser(id,
+                current -> new UserRequest(current.getName(), current.getSurname(), current.getAge() + 1));
+
+        // Assert
+        assertThat(response.getAge()).isEqualTo(31);
+        assertThat(response.getVersion()).isEqualTo(3L);
+        verify(userRepository, times(2)).findResponseById(id);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(userChangeOutbox, times(1)).updated(id, response);
+        verify(userListSnapshotService, times(1)).invalidate();
+    }
+
+    @Test
+    void givenPersistentContentionWhenModifyUserThenGivesUpAfterMaxAttempts() {
+        // Arrange
+        Long id = 1L;
+        when(userRepository.findResponseById(id)).thenReturn(Optional.of(new UserResponse("Kamran", "Babayev", 24, 1L)));
+        when(userRepository.updateUserIfVersion(id, "Kamran", "Babayev", 25, 1L)).thenReturn(Optional.empty());
+        when(userRepository.findVersionById(id)).thenReturn(Optional.of(2L));
+
+        //Act & assert
+        assertThatThrownBy(() -> userService.modifyUser(id,
+                current -> new UserRequest(current.getName(), current.getSurname(), current.getAge() + 1)))
+                .isInstanceOf(UserVersionConflict.class);
+        verify(userRepository, times(3)).updateUserIfVersion(id, "Kamran", "Babayev", 25, 1L);
+        verify(userListSnapshotService, never()).invalidate();
+    }
+
     @Test
     void givenValidIdWhenDeleteUserThenSuccess() {
         // Arrange
         Long id = 1L;
-        when(userRepository.findById(id)).thenReturn(Optional.of(mockUser));
+        when(userRepository.deleteUserById(id)).thenReturn(1);
 
         // Act
         userService.deleteUserById(id);
 
         // Assert
-        verify(userRepository, times(1)).findById(id);
-        verify(userRepository, times(1)).deleteById(id);
+        verify(userRepository, times(1)).deleteUserById(id);
+        verify(userRepository, never()).findById(anyLong());
+        verify(userChangeOutbox, times(1)).deleted(id);
+        verify(userListSnapshotService, times(1)).invalidate();
     }
 
     @Test
     void givenInvalidIdWhenDeleteUserThenNotFound() {
         // Arrange
         Long id = 1L;
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.deleteUserById(id)).thenReturn(0);
 
         // Act & assert
         assertThatThrownBy(() -> userService.deleteUserById(id))
                 .isInstanceOf(UserNotFound.class)
                 .hasMessage("User not found with id: " + id);
-        verify(userRepository, never()).deleteById(anyLong());
+        verify(userRepository, only()).deleteUserById(id);
+        verifyNoInteractions(userChangeOutbox);
+    }
+
+    @Test
+    void givenPublishedChangesWhenGetChangesThenNextIsLastPosition() {
+        // Arrange
+        List<UserChangeResponse> changes = List.of(
+                UserChangeResponse.builder().position(6L).userId(1L).type(UserChangeType.CREATED).build(),
+                UserChangeResponse.builder().position(9L).userId(1L).type(UserChangeType.DELETED).build());
+        when(userChangeRepository.findPublishedAfter(5L, PageRequest.of(0, 1000))).thenReturn(changes);
+
+        // Act
+        UserChangePageResponse page = userService.getChanges(5L, 5000);
+
+        // Assert
+        assertThat(page.getChanges()).isEqualTo(changes);
+        assertThat(page.getNext()).isEqualTo(9L);
+    }
+
+    @Test
+    void givenNoNewChangesWhenGetChangesThenNextIsSince() {
+        // Arrange
+        when(userChangeRepository.findPublishedAfter(5L, PageRequest.of(0, 100))).thenReturn(List.of());
+
+        // Act
+        UserChangePageResponse page = userService.getChanges(5L, 100);
+
+        // Assert
+        assertThat(page.getChanges()).isEmpty();
+        assertThat(page.getNext()).isEqualTo(5L);
+    }
+
+    private static UserView userView(String name, String surname, Integer age, Long version) {
+        return new UserView() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getSurname() {
+                return surname;
+            }
+
+            @Override
+            public Integer getAge() {
+                return age;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package az.ingress.mapstruct.service;
+
+import az.ingress.mapstruct.dto.request.UserRequest;
+import az.ingress.mapstruct.dto.response.UserResponse;
+import az.ingress.mapstruct.model.User;
+import az.ingress.mapstruct.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers the conditional update path from many threads against a real Postgres and checks
+ * that every successful increment is visible in the final row, i.e. no update was lost, and
+ * that contention on one row still gets a reasonable share of the uncontended throughput.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "app.retry.conflict.max-attempts=50",
+        "app.retry.conflict.base-delay=1ms",
+        "app.retry.conflict.max-delay=20ms"})
+@Testcontainers(disabledWithoutDocker = true)
+class UserUpdateContentionTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserUpdateContentionTest.class);
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 50;
+    private static final int START_AGE = 10;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void givenConcurrentIncrementsWhenModifyUserThenNoLostUpdates() throws Exception {
+        //Arrange
+        long[] ids = new long[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            ids[i] = createUser();
+        }
+        long contended = createUser();
+
+        //Act
+        double uncontendedOpsPerSecond = incrementConcurrently(thread -> ids[(int) thread]);
+        double contendedOpsPerSecond = incrementConcurrently(thread -> contended);
+
+        //Assert
+        for (long id : ids) {
+            assertThat(ageOf(id)).isEqualTo(START_AGE + INCREMENTS_PER_THREAD);
+        }
+        assertThat(ageOf(contended)).isEqualTo(START_AGE + THREADS * INCREMENTS_PER_THREAD);
+        assertThat(userRepository.findResponseById(contended).orElseThrow().getVersion())
+                .isEqualTo((long) THREADS * INCREMENTS_PER_THREAD);
+        log.info("Increments: {} ops/s on separate rows, {} ops/s on one row",
+                Math.round(uncontendedOpsPerSecond), Math.round(contendedOpsPerSecond));
+        assertThat(contendedOpsPerSecond).isGreaterThan(uncontendedOpsPerSecond / 20);
+    }
+
+    private double incrementConcurrently(LongUnaryOperator userForThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int thread = 0; thread < THREADS; thread++) {
+                long id = userForThread.applyAsLong(thread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        userService.modifyUser(id, current ->
+                                new UserRequest(current.getName(), current.getSurname(), current.getAge() + 1));
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            long elapsed = System.nanoTime() - started;
+            return THREADS * INCREMENTS_PER_THREAD * 1e9 / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long createUser() {
+        return userRepository.save(User.builder().name("Kamran").surname("Babayev").age(START_AGE).build()).getId();
+    }
+
+    private int ageOf(long id) {
+        UserResponse user = userRepository.findResponseById(id).orElseThrow();
+        return user.getAge();
+    }
+}